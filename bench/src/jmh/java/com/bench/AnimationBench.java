@@ -0,0 +1,81 @@
+package com.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.KeyPointsParser;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.util.Animation;
+
+/**
+ * Sampling all bones of an animation at a time that moves forward by one frame each call, with
+ * binary search and with a {@link Animation.Cursor}
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AnimationBench
+{
+	@Param({ "8", "256" })
+	public int frames;
+	
+	private Animation animation;
+	
+	private Animation.Cursor cursor;
+	
+	private double[] dst;
+	
+	private double time, step;
+	
+	@Setup
+	public void setup() throws IOException
+	{
+		final String json = Inputs.keyPoints(1, 32, this.frames, 13L);
+		try(JsonParser in = new JsonFactory().createParser(json))
+		{
+			this.animation = KeyPointsParser.read(in).get(0);
+		}
+		this.cursor = this.animation.cursor();
+		this.dst = new double[this.animation.boneCount() * Animation.STRIDE];
+		this.step = this.animation.length / 240D;
+	}
+	
+	@Benchmark
+	public double[] sampleSearch() { return this.animation.sample(this.next(), this.dst, 0); }
+	
+	@Benchmark
+	public double[] sampleCursor()
+	{
+		final double time = this.next();
+		if(time == 0D) this.cursor.reset();
+		return this.cursor.sample(time, this.dst, 0);
+	}
+	
+	/**
+	 * Advance one frame and loop back at the end of the animation
+	 */
+	private double next()
+	{
+		final double time = this.time;
+		this.time = time + this.step > this.animation.length ? 0D : time + this.step;
+		return time;
+	}
+}
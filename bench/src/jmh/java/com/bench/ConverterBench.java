@@ -0,0 +1,146 @@
+package com.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.HitboxConverter;
+import com.KeyPointsParser;
+import com.ModelConverter;
+import com.ShapeBoxTable;
+import com.util.CharScanner;
+import com.util.NumberWriter;
+
+/**
+ * End to end throughput of the converters on generated sources. Output is written to a writer that
+ * drops it, except for {@link KeyPointsParser} which can only be run on files.
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConverterBench
+{
+	/**
+	 * Amount of boxes in the model
+	 */
+	@Param({ "1000", "20000" })
+	public int boxes;
+	
+	private String model;
+	
+	private File modelFile;
+	
+	private File keyPointsFile;
+	
+	private File keyPointsOut;
+	
+	@Setup
+	public void setup() throws IOException
+	{
+		this.model = Inputs.model(this.boxes, 1L);
+		this.modelFile = File.createTempFile("model", ".java");
+		Files.write(this.modelFile.toPath(), this.model.getBytes(StandardCharsets.US_ASCII));
+		
+		// About as many key frames as boxes
+		final String keyPoints = Inputs.keyPoints(4, 10, Math.max(1, this.boxes / 80), 1L);
+		this.keyPointsFile = File.createTempFile("keypoints", ".json");
+		Files.write(this.keyPointsFile.toPath(), keyPoints.getBytes(StandardCharsets.UTF_8));
+		this.keyPointsOut = File.createTempFile("keypoints", ".java");
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		this.modelFile.delete();
+		this.keyPointsFile.delete();
+		this.keyPointsOut.delete();
+	}
+	
+	@Benchmark
+	public ShapeBoxTable modelConverter() throws IOException
+	{
+		final ShapeBoxTable table = this.parse();
+		try(NumberWriter out = new NumberWriter(Inputs.nullWriter())) {
+			ModelConverter.write(table, out);
+		}
+		return table;
+	}
+	
+	@Benchmark
+	public void modelConverterStream() throws IOException
+	{
+		try(
+			CharScanner in = new CharScanner(new StringReader(this.model));
+			NumberWriter out = new NumberWriter(Inputs.nullWriter());
+		) { ModelConverter.stream(in, out); }
+	}
+	
+	@Benchmark
+	public ShapeBoxTable hitboxConverter() throws IOException
+	{
+		final ShapeBoxTable table = this.parse();
+		try(NumberWriter out = new NumberWriter(Inputs.nullWriter())) {
+			HitboxConverter.write(table, out);
+		}
+		return table;
+	}
+	
+	@Benchmark
+	public ShapeBoxTable loadMapped() throws IOException
+	{
+		return ShapeBoxTable.load(this.modelFile.getPath(), true, false);
+	}
+	
+	@Benchmark
+	public ShapeBoxTable loadParallel() throws IOException
+	{
+		return ShapeBoxTable.load(this.modelFile.getPath(), true, true);
+	}
+	
+	@Benchmark
+	public void keyPointsParser()
+	{
+		KeyPointsParser.main(
+			new String[] { this.keyPointsFile.getPath(), this.keyPointsOut.getPath() }
+		);
+	}
+	
+	@Benchmark
+	public void keyPointsParserStream()
+	{
+		KeyPointsParser.main(
+			new String[] { "-stream", this.keyPointsFile.getPath(), this.keyPointsOut.getPath() }
+		);
+	}
+	
+	private ShapeBoxTable parse() throws IOException
+	{
+		try(CharScanner in = new CharScanner(new StringReader(this.model)))
+		{
+			final ShapeBoxTable table = new ShapeBoxTable();
+			table.parse(in);
+			return table;
+		}
+	}
+}
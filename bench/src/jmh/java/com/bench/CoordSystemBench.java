@@ -0,0 +1,247 @@
+package com.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.util.CoordSystem;
+import com.util.CoordSystemF;
+import com.util.Quat;
+import com.util.Vec3;
+import com.util.Vec3f;
+
+/**
+ * Transformations of {@link CoordSystem}. Angles are a mix of zero, right and arbitrary angles
+ * like the rotations found in ToolBox models.
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CoordSystemBench
+{
+	private static final int ANGLES = 1024;
+	
+	/**
+	 * Amount of xzy rotations in a chain
+	 */
+	private static final int CHAIN = 4;
+	
+	private final double[] angles = new double[ANGLES * 3];
+	
+	private final float[] vertices = new float[8 * 3];
+	
+	private final float[] result = new float[8 * 3];
+	
+	private CoordSystem sys;
+	
+	private CoordSystemF sysf;
+	
+	/**
+	 * Rotated system that {@link #getAngle()} restores from
+	 */
+	private CoordSystem rotated;
+	
+	private Vec3 vec;
+	
+	private Vec3f vecf;
+	
+	private Quat quat;
+	
+	/**
+	 * End points of {@link #slerp()}
+	 */
+	private Quat from, to;
+	
+	private int cursor = 0;
+	
+	@Setup
+	public void setup()
+	{
+		final Random rand = new Random(1);
+		for(int i = 0; i < this.angles.length; ++i)
+			switch(rand.nextInt(3))
+			{
+			case 0: this.angles[i] = 0D; break;
+			case 1: this.angles[i] = 90D * (rand.nextInt(7) - 3); break;
+			default: this.angles[i] = rand.nextDouble() * 360D - 180D;
+			}
+		for(int i = 0; i < this.vertices.length; ++i)
+			this.vertices[i] = rand.nextFloat() * 20F - 10F;
+		
+		this.sys = CoordSystem.get().setDefault();
+		this.sysf = CoordSystemF.get().setDefault();
+		this.rotated = CoordSystem.get().setDefault();
+		this.rotated.globalRot(30D, -45D, 60D);
+		this.vec = Vec3.get();
+		this.vecf = Vec3f.get(1F, 2F, 3F);
+		this.quat = Quat.get();
+		this.from = Quat.get().setAngle(30D, -45D, 60D);
+		this.to = Quat.get().setAngle(-120D, 10D, 15D);
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		this.sys.release();
+		this.sysf.release();
+		this.rotated.release();
+		this.vec.release();
+		this.vecf.release();
+		this.quat.release();
+		this.from.release();
+		this.to.release();
+	}
+	
+	@Benchmark
+	public CoordSystem rot()
+	{
+		final int i = this.next();
+		return this.sys.setDefault().rot(this.angles[i], CoordSystem.Y);
+	}
+	
+	@Benchmark
+	public CoordSystem rotXYZ()
+	{
+		final int i = this.next();
+		return this.sys.setDefault().rot(this.angles[i], this.angles[i + 1], this.angles[i + 2]);
+	}
+	
+	@Benchmark
+	public CoordSystem globalRotXYZ()
+	{
+		final int i = this.next();
+		return this.sys.setDefault()
+			.globalRot(this.angles[i], this.angles[i + 1], this.angles[i + 2]);
+	}
+	
+	@Benchmark
+	public CoordSystem submitRot()
+	{
+		final int i = this.next();
+		return this.sys.setDefault()
+			.rot(this.angles[i], this.angles[i + 1], this.angles[i + 2])
+			.submitRot();
+	}
+	
+	/**
+	 * A chain of rotations on single axes merged by {@link CoordSystem#submitRot()}
+	 */
+	@Benchmark
+	public CoordSystem rotChain()
+	{
+		this.sys.setDefault();
+		for(int k = 0; k < CHAIN; ++k)
+		{
+			final int i = this.next();
+			this.sys.rot(this.angles[i], CoordSystem.X)
+				.rot(this.angles[i + 2], CoordSystem.Z)
+				.rot(this.angles[i + 1], CoordSystem.Y);
+		}
+		return this.sys.submitRot();
+	}
+	
+	/**
+	 * Same chain as {@link #rotChain()} accumulated in a {@link Quat}
+	 */
+	@Benchmark
+	public CoordSystem quatChain()
+	{
+		this.quat.setIdentity();
+		for(int k = 0; k < CHAIN; ++k)
+		{
+			final int i = this.next();
+			this.quat.rot(this.angles[i], CoordSystem.X)
+				.rot(this.angles[i + 2], CoordSystem.Z)
+				.rot(this.angles[i + 1], CoordSystem.Y);
+		}
+		return this.sys.setDefault().rot(this.quat.normalize()).submitRot();
+	}
+	
+	@Benchmark
+	public Quat slerp()
+	{
+		final int i = this.next();
+		return this.quat.slerp(this.from, this.to, this.angles[i] / 360D + 0.5D);
+	}
+	
+	@Benchmark
+	public Vec3f apply()
+	{
+		return this.sys.apply(this.vecf, this.vecf);
+	}
+	
+	/**
+	 * The eight vertices of a box at once
+	 */
+	@Benchmark
+	public float[] applyBatch()
+	{
+		return this.sys.apply(this.vertices, 0, this.result, 0, 8);
+	}
+	
+	/**
+	 * Transform of a box as done by {@link com.HitboxConverter}
+	 */
+	@Benchmark
+	public float[] hitboxTransform()
+	{
+		final int i = this.next();
+		return this.sys.setDefault()
+			.globalTrans(1D, -2D, -3D)
+			.globalRot(this.angles[i], this.angles[i + 1], this.angles[i + 2])
+			.trans(-0.5D, 0.5D, 2D)
+			.apply(this.vertices, 0, this.result, 0, 8);
+	}
+	
+	/**
+	 * {@link #applyBatch()} in float arithmetic
+	 */
+	@Benchmark
+	public float[] applyBatchF()
+	{
+		return this.sysf.apply(this.vertices, 0, this.result, 0, 8);
+	}
+	
+	/**
+	 * {@link #hitboxTransform()} in float arithmetic
+	 */
+	@Benchmark
+	public float[] hitboxTransformF()
+	{
+		final int i = this.next();
+		return this.sysf.setDefault()
+			.globalTrans(1F, -2F, -3F)
+			.globalRot((float)this.angles[i], (float)this.angles[i + 1], (float)this.angles[i + 2])
+			.trans(-0.5F, 0.5F, 2F)
+			.apply(this.vertices, 0, this.result, 0, 8);
+	}
+	
+	@Benchmark
+	public Vec3 getAngle()
+	{
+		return this.sys.set(this.rotated).getAngle(this.vec);
+	}
+	
+	private int next()
+	{
+		final int i = this.cursor;
+		this.cursor = (i + 3) % this.angles.length;
+		return i;
+	}
+}
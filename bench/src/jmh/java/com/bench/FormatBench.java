@@ -0,0 +1,103 @@
+package com.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.util.NumberWriter;
+
+/**
+ * Writing the floats of {@code .addShapeBox(...)} lines by string concatenation with
+ * {@link Float#toString(float)}, as the converters used to, and with {@link NumberWriter}. Run
+ * with the gc profiler to compare the garbage of each.
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatBench
+{
+	/**
+	 * Floats of a box in a line
+	 */
+	private static final int STRIDE = 3 + 3 + 3 + 24;
+	
+	/**
+	 * Significant digits of {@link NumberWriter}, {@code 0} for shortest
+	 */
+	@Param({ "0", "4" })
+	public int precision;
+	
+	private float[] values;
+	
+	@Setup
+	public void setup()
+	{
+		// Mostly short fractions like the ones ToolBox writes, some with full float digits
+		final Random rand = new Random(17L);
+		this.values = new float[1000 * STRIDE];
+		for(int i = 0; i < this.values.length; ++i)
+			this.values[i] = rand.nextInt(4) == 0
+				? (rand.nextFloat() - 0.5F) * 32F
+				: (rand.nextInt(129) - 64) / 8F;
+	}
+	
+	@Benchmark
+	public void concat() throws IOException
+	{
+		try(BufferedWriter out = new BufferedWriter(Inputs.nullWriter()))
+		{
+			for(int off = 0; off < this.values.length; off += STRIDE)
+			{
+				out.write(".addShapeBox(" + toStr(this.values[off]));
+				for(int i = 1; i < STRIDE; ++i)
+					out.write(", " + toStr(this.values[off + i]));
+				out.write(")");
+				out.newLine();
+			}
+		}
+	}
+	
+	@Benchmark
+	public void numberWriter() throws IOException
+	{
+		try(NumberWriter out = new NumberWriter(Inputs.nullWriter(), this.precision))
+		{
+			for(int off = 0; off < this.values.length; off += STRIDE)
+			{
+				out.print(".addShapeBox(");
+				for(int i = 0; i < STRIDE; ++i)
+				{
+					if(i > 0) out.print(", ");
+					final float f = this.values[off + i];
+					if(f == (int)f) out.print((int)f);
+					else out.print(f);
+					out.print('F');
+				}
+				out.print(')').newLine();
+			}
+		}
+	}
+	
+	private static String toStr(float f)
+	{
+		return (f == (int)f ? Integer.toString((int)f) : Float.toString(f)) + "F";
+	}
+}
@@ -0,0 +1,131 @@
+package com.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Generates the sources fed to the converter benchmarks. Same seed always gives the same source.
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class Inputs
+{
+	private Inputs() { }
+	
+	/**
+	 * ToolBox model source with the given amount of boxes split into two turbo arrays. Each box has
+	 * a shape box, a rotation point and some rotations like the models exported by ToolBox.
+	 */
+	public static String model(int boxes, long seed)
+	{
+		final Random rand = new Random(seed);
+		final String[] names = { "bodyModel", "turretModel" };
+		final int[] sizes = { boxes / 2, boxes - boxes / 2 };
+		
+		final StringBuilder builder = new StringBuilder(boxes * 400);
+		for(int a = 0; a < names.length; ++a)
+		{
+			builder.append("\t\t").append(names[a]).append(" = new ModelRendererTurbo[")
+				.append(sizes[a]).append("];\n");
+			for(int i = 0; i < sizes[a]; ++i)
+				builder.append("\t\t").append(names[a]).append('[').append(i)
+					.append("] = new ModelRendererTurbo(this, ").append(rand.nextInt(256))
+					.append(", ").append(rand.nextInt(256)).append(", textureX, textureY);\n");
+			builder.append('\n');
+		}
+		
+		for(int a = 0; a < names.length; ++a)
+			for(int i = 0; i < sizes[a]; ++i)
+			{
+				final String box = "\t\t" + names[a] + "[" + i + "]";
+				builder.append(box).append(".addShapeBox(");
+				for(int j = 0; j < 3; ++j) builder.append(toStr(rand)).append(", ");
+				for(int j = 0; j < 3; ++j) builder.append(1 + rand.nextInt(9)).append(", ");
+				builder.append("0F");
+				for(int j = 0; j < 24; ++j) builder.append(", ").append(toStr(rand));
+				builder.append("); // Box ").append(i).append('\n');
+				
+				builder.append(box).append(".setRotationPoint(").append(toStr(rand)).append(", ")
+					.append(toStr(rand)).append(", ").append(toStr(rand)).append(");\n");
+				
+				for(char axis = 'X'; axis <= 'Z'; ++axis)
+					if(rand.nextInt(10) < 3)
+						builder.append(box).append(".rotateAngle").append(axis).append(" = ")
+							.append(rand.nextBoolean() ? "1.57079633F" : toStr(rand)).append(";\n");
+				builder.append('\n');
+			}
+		return builder.toString();
+	}
+	
+	/**
+	 * Key points json in the layout read by {@link com.KeyPointsParser}
+	 */
+	public static String keyPoints(int animations, int bones, int frames, long seed)
+	{
+		final Random rand = new Random(seed);
+		final StringBuilder builder = new StringBuilder(animations * bones * frames * 80);
+		builder.append("{\"format_version\":\"1.8.0\",\"animations\":{");
+		for(int a = 0; a < animations; ++a)
+		{
+			if(a > 0) builder.append(',');
+			builder.append("\"animation.").append(a).append("\":{\"animation_length\":")
+				.append(frames * 0.25D).append(",\"bones\":{");
+			for(int b = 0; b < bones; ++b)
+			{
+				if(b > 0) builder.append(',');
+				builder.append("\"bone").append(b).append("\":{");
+				keyFrames(builder.append("\"position\":"), frames, rand);
+				keyFrames(builder.append(",\"rotation\":"), frames, rand);
+				builder.append('}');
+			}
+			builder.append("}}");
+		}
+		return builder.append("}}").toString();
+	}
+	
+	/**
+	 * Writer that drops everything written to it
+	 */
+	public static Writer nullWriter()
+	{
+		return new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) { }
+			
+			@Override
+			public void write(String str, int off, int len) { }
+			
+			@Override
+			public void flush() { }
+			
+			@Override
+			public void close() throws IOException { }
+		};
+	}
+	
+	private static void keyFrames(StringBuilder builder, int frames, Random rand)
+	{
+		builder.append('{');
+		for(int f = 0; f < frames; ++f)
+		{
+			if(f > 0) builder.append(',');
+			builder.append('"').append(f * 0.25D).append("\":{\"post\":[")
+				.append(rand.nextInt(200) / 10D - 10D).append(',')
+				.append(rand.nextInt(200) / 10D - 10D).append(',')
+				.append(rand.nextInt(200) / 10D - 10D).append("]}");
+		}
+		builder.append('}');
+	}
+	
+	private static String toStr(Random rand)
+	{
+		switch(rand.nextInt(4))
+		{
+		case 0: return "0F";
+		case 1: return rand.nextInt(400) / 10F - 20F + "F";
+		case 2: return rand.nextFloat() * 4F - 2F + "F";
+		default: return "-" + rand.nextInt(10) + "F";
+		}
+	}
+}
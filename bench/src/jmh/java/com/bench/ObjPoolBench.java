@@ -0,0 +1,92 @@
+package com.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.util.ObjPool;
+
+/**
+ * {@link ObjPool#poll()} and {@link ObjPool#back(Object)} on one shared pool from 1 to all
+ * threads, compared with a pool on a synchronized list. Each call polls a batch of instances and
+ * gives them all back, which is how the converters use the pools of vectors and coordinate
+ * systems.
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ObjPoolBench
+{
+	@Param({ "1", "8" })
+	public int batch;
+	
+	/**
+	 * {@code local} for the thread local stacks, {@code list} for a pool on a synchronized list
+	 */
+	@Param({ "local", "list" })
+	public String mode;
+	
+	private ObjPool<Object> pool;
+	
+	@Setup
+	public void setup()
+	{
+		this.pool = (
+			this.mode.equals("list")
+			? new ObjPool<>(
+				Object::new,
+				(instance, pool) -> { if(pool.size() < 64) pool.add(instance); }
+			)
+			: new ObjPool<>(Object::new)
+		);
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public Object pollBack1(Local local) { return this.pollBack(local); }
+	
+	@Benchmark
+	@Threads(2)
+	public Object pollBack2(Local local) { return this.pollBack(local); }
+	
+	@Benchmark
+	@Threads(4)
+	public Object pollBack4(Local local) { return this.pollBack(local); }
+	
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Object pollBackMax(Local local) { return this.pollBack(local); }
+	
+	private Object pollBack(Local local)
+	{
+		final Object[] held = local.held;
+		for(int i = 0; i < this.batch; ++i) held[i] = this.pool.poll();
+		for(int i = this.batch; i-- > 0; ) this.pool.back(held[i]);
+		return held[0];
+	}
+	
+	/**
+	 * Instances held by a thread between poll and back
+	 */
+	@State(Scope.Thread)
+	public static class Local
+	{
+		final Object[] held = new Object[8];
+	}
+}
@@ -0,0 +1,102 @@
+package com.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.HitboxConverter;
+import com.HitboxQuery;
+
+/**
+ * Rays per second of {@link HitboxQuery} on generated hitboxes. Boxes are rotated and sheared by
+ * random corner offsets and spread over a cube that grows with their amount, so the density of
+ * boxes along a ray stays about the same. Rays come from outside the cube and aim into it.
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RayCastBench
+{
+	private static final int RAYS = 1024;
+	
+	@Param({ "1000", "10000", "100000" })
+	public int boxes;
+	
+	private HitboxQuery query;
+	
+	private final float[] rays = new float[RAYS * HitboxQuery.RAY_STRIDE];
+	
+	private final int[] ids = new int[RAYS];
+	
+	private final float[] hits = new float[RAYS * HitboxQuery.HIT_STRIDE];
+	
+	@Setup
+	public void setup()
+	{
+		final Random rand = new Random(29L);
+		final float size = 4F * (float)Math.cbrt(this.boxes);
+		final int stride = HitboxConverter.BIN_STRIDE;
+		final float[] vertices = new float[this.boxes * stride];
+		for(int i = 0; i < this.boxes; ++i)
+		{
+			final float lx = 0.5F + rand.nextFloat() * 1.5F;
+			final float ly = 0.5F + rand.nextFloat() * 1.5F;
+			final float lz = 0.5F + rand.nextFloat() * 1.5F;
+			final float cx = rand.nextFloat() * size;
+			final float cy = rand.nextFloat() * size;
+			final float cz = rand.nextFloat() * size;
+			final double yaw = rand.nextDouble() * Math.PI * 2D;
+			final float sin = (float)Math.sin(yaw), cos = (float)Math.cos(yaw);
+			for(int v = 0; v < 8; ++v)
+			{
+				// Corners in the order of HitboxConverter with a small random shape offset
+				final float x = ((v + 1 & 2) == 0 ? 0F : lx) + (rand.nextFloat() - 0.5F) * 0.2F;
+				final float y = (v < 4 ? 0F : -ly) + (rand.nextFloat() - 0.5F) * 0.2F;
+				final float z = ((v & 2) == 0 ? 0F : -lz) + (rand.nextFloat() - 0.5F) * 0.2F;
+				final int off = i * stride + v * 3;
+				vertices[off] = cx + x * cos - z * sin;
+				vertices[off + 1] = cy + y;
+				vertices[off + 2] = cz + x * sin + z * cos;
+			}
+		}
+		this.query = new HitboxQuery(vertices, this.boxes, null);
+		
+		for(int i = 0; i < RAYS; ++i)
+		{
+			final double theta = rand.nextDouble() * Math.PI * 2D;
+			final double phi = Math.acos(rand.nextDouble() * 2D - 1D);
+			final float r = size * 1.5F, c = size / 2F;
+			HitboxQuery.setSegment(
+				this.rays, i * HitboxQuery.RAY_STRIDE,
+				c + r * (float)(Math.sin(phi) * Math.cos(theta)),
+				c + r * (float)(Math.sin(phi) * Math.sin(theta)),
+				c + r * (float)Math.cos(phi),
+				rand.nextFloat() * size, rand.nextFloat() * size, rand.nextFloat() * size
+			);
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RAYS)
+	public int cast()
+	{
+		return this.query.cast(this.rays, 0, RAYS, this.ids, 0, this.hits, 0);
+	}
+}
@@ -0,0 +1,93 @@
+package com.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.util.Vec3;
+import com.util.Vec3f;
+
+/**
+ * Arithmetic of {@link Vec3} and {@link Vec3f}, plus a get and release through their pools
+ * 
+ * @author Giant_Salted_Fish
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VecBench
+{
+	private Vec3 a, b;
+	
+	private Vec3f af, bf;
+	
+	@Setup
+	public void setup()
+	{
+		this.a = Vec3.get(1D, 2D, 3D);
+		this.b = Vec3.get(-3D, 0.5D, 2D);
+		this.af = Vec3f.get(1F, 2F, 3F);
+		this.bf = Vec3f.get(-3F, 0.5F, 2F);
+	}
+	
+	@TearDown
+	public void tearDown()
+	{
+		this.a.release();
+		this.b.release();
+		this.af.release();
+		this.bf.release();
+	}
+	
+	@Benchmark
+	public Vec3 vec3TransScale() { return this.a.trans(this.b).scale(0.5D); }
+	
+	@Benchmark
+	public Vec3 vec3CrossNormalize() { return this.a.set(1D, 2D, 3D).cross(this.b).normalize(); }
+	
+	@Benchmark
+	public double vec3Dot() { return this.a.dot(this.b); }
+	
+	@Benchmark
+	public double vec3Angle() { return this.a.angle(this.b); }
+	
+	@Benchmark
+	public Vec3f vec3fTransScale() { return this.af.trans(this.bf).scale(0.5F); }
+	
+	@Benchmark
+	public Vec3f vec3fCrossNormalize()
+	{
+		return this.af.set(1F, 2F, 3F).cross(this.bf).normalize();
+	}
+	
+	@Benchmark
+	public double vec3PooledSub()
+	{
+		final Vec3 v = Vec3.get(this.a).sub(this.b);
+		final double length = v.length();
+		v.release();
+		return length;
+	}
+	
+	@Benchmark
+	public float vec3fPooledSub()
+	{
+		final Vec3f v = Vec3f.get(this.af.x, this.af.y, this.af.z).sub(this.bf);
+		final float x = v.x;
+		v.release();
+		return x;
+	}
+}
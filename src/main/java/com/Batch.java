@@ -0,0 +1,547 @@
+package com;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>Converts many sources in one JVM. Sources are given as files, directories (searched
+ * recursively) or glob patterns like {@code packs/**}{@code /*.java}, and are converted on a fixed
+ * size pool of worker threads.</p>
+ * 
+ * <p>Outputs are written next to their source as {@code <name>}{@value #OUTPUT_SUFFIX}, or with
+ * {@code -out=dir} into a tree under the given directory that mirrors the sources. Files ending
+ * with {@value #OUTPUT_SUFFIX} are never taken as source.</p>
+ * 
+ * <p>Sources whose content, converter and options have not changed since a previous run are not
+ * converted again, see {@link ConversionCache}. The manifest is kept in {@value #DEF_CACHE} under
+ * the output directory, or the working directory if outputs are written next to the sources.</p>
+ * 
+ * <p>With {@code -watch} the sources are converted once and then watched for changes. Changed
+ * sources are converted again in the same JVM as soon as no more changes have come in for the
+ * debounce window, so a burst of saves results in a single conversion of each touched file.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class Batch
+{
+	public static final String OUTPUT_SUFFIX = ".after.java";
+	
+	public static final String DEF_CACHE = ".convert-cache";
+	
+	/**
+	 * Default time in milliseconds to wait for more changes before converting in watch mode
+	 */
+	public static final long DEF_DEBOUNCE = 200L;
+	
+	/**
+	 * Converts a single source. Jobs are called from several threads at once, so they should not
+	 * tell anything themselves but return it to be put on the line of the source.
+	 */
+	@FunctionalInterface
+	public static interface Job
+	{
+		/**
+		 * @return Short note on the conversion such as reduction counts, or {@code null}
+		 */
+		public String convert(Path src, Path dest) throws Exception;
+	}
+	
+	/**
+	 * A source and the root that its mirrored output path is relative to
+	 */
+	private static final class Source
+	{
+		final Path file;
+		final Path root;
+		
+		Source(Path file, Path root)
+		{
+			this.file = file;
+			this.root = root;
+		}
+	}
+	
+	/**
+	 * Usage: {@code [-threads=n] [-out=dir] [-cache=file|-no-cache] [-watch [-debounce=ms]]
+	 * <model|hitbox|animation> [options] <sources...>}
+	 * 
+	 * <p>Options are passed to the converter, see {@link ModelConverter#job(List)},
+	 * {@link HitboxConverter#job(List)} and {@link KeyPointsParser#job(List)}. Default amount of
+	 * threads is the amount of cores.</p>
+	 * 
+	 * <p>With {@code -cache=file} the given manifest is used instead of the default one. With
+	 * {@code -no-cache} every source is converted.</p>
+	 * 
+	 * <p>With {@code -watch} the sources are watched for changes after the first run until the
+	 * process is killed. Changes are converted once none has come in for {@code -debounce} ms,
+	 * default {@value #DEF_DEBOUNCE}.</p>
+	 */
+	public static void main(String[] args)
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		String tool = null, outDir = null, cacheFile = null;
+		boolean useCache = true, watch = false;
+		long debounce = DEF_DEBOUNCE;
+		final ArrayList<String> options = new ArrayList<>();
+		final ArrayList<String> inputs = new ArrayList<>();
+		try
+		{
+			for(String arg : args)
+				if(arg.startsWith("-threads="))
+					threads = Integer.parseInt(arg.substring("-threads=".length()));
+				else if(arg.startsWith("-out=")) outDir = arg.substring("-out=".length());
+				else if(arg.startsWith("-cache=")) cacheFile = arg.substring("-cache=".length());
+				else if(arg.equals("-no-cache")) useCache = false;
+				else if(arg.equals("-watch")) watch = true;
+				else if(arg.startsWith("-debounce="))
+					debounce = Long.parseLong(arg.substring("-debounce=".length()));
+				else if(arg.startsWith("-")) options.add(arg);
+				else if(tool == null) tool = arg;
+				else inputs.add(arg);
+			if(threads < 1) throw new IllegalArgumentException("invalid thread count " + threads);
+			if(debounce < 0L) throw new IllegalArgumentException("invalid debounce " + debounce);
+			if(tool == null || inputs.isEmpty())
+				throw new IllegalArgumentException("expect a converter and at least one source");
+		}
+		catch(IllegalArgumentException e)
+		{
+			tell(e.getMessage());
+			tell(
+				"usage: [-threads=n] [-out=dir] [-cache=file|-no-cache] [-watch [-debounce=ms]]"
+				+ " <model|hitbox|animation> [options] <sources...>"
+			);
+			return;
+		}
+		
+		final Job job;
+		final String ext;
+		try
+		{
+			switch(tool)
+			{
+			case "model":
+				job = ModelConverter.job(options);
+				ext = ".java";
+				break;
+			
+			case "hitbox":
+				job = HitboxConverter.job(options);
+				ext = ".java";
+				break;
+			
+			case "animation":
+				job = KeyPointsParser.job(options);
+				ext = ".json";
+				break;
+			
+			default: throw new IllegalArgumentException("unknown converter <" + tool + ">");
+			}
+		}
+		catch(IllegalArgumentException e)
+		{
+			tell(e.getMessage());
+			return;
+		}
+		
+		final ArrayList<Input> roots = new ArrayList<>();
+		for(String input : inputs) roots.add(new Input(input, ext));
+		
+		final ArrayList<Source> sources = new ArrayList<>();
+		try { for(Input input : roots) input.collect(sources); }
+		catch(IOException e)
+		{
+			tell("failed to list sources");
+			e.printStackTrace();
+			return;
+		}
+		
+		final Path out = outDir != null ? Paths.get(outDir) : null;
+		ConversionCache cache = null;
+		if(useCache)
+		{
+			if(cacheFile == null)
+				cacheFile = out != null ? out.resolve(DEF_CACHE).toString() : DEF_CACHE;
+			try { cache = ConversionCache.load(Paths.get(cacheFile)); }
+			catch(IOException e)
+			{
+				tell("failed to load cache <" + cacheFile + ">, convert all sources");
+				e.printStackTrace();
+			}
+		}
+		
+		final String key = ConversionCache.keyOf(tool, options);
+		run(job, key, cache, sources, out, threads);
+		save(cache, out);
+		if(!watch) return;
+		
+		try { watch(roots, debounce, job, key, cache, out, threads); }
+		catch(IOException e)
+		{
+			tell("failed to watch sources");
+			e.printStackTrace();
+		}
+		catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+	}
+	
+	/**
+	 * Convert changed sources until interrupted
+	 * 
+	 * @param debounce Milliseconds without changes to wait before converting
+	 * @see #run(Job, String, ConversionCache, List, Path, int)
+	 */
+	private static void watch(
+		List<Input> inputs,
+		long debounce,
+		Job job,
+		String key,
+		ConversionCache cache,
+		Path out,
+		int threads
+	) throws IOException, InterruptedException {
+		try(WatchService watcher = FileSystems.getDefault().newWatchService())
+		{
+			// Directories of directory and glob inputs are watched as trees. Parents of single
+			// file inputs are only watched for those files.
+			final HashMap<WatchKey, Path> dirs = new HashMap<>();
+			final HashSet<WatchKey> trees = new HashSet<>();
+			final HashSet<Path> singles = new HashSet<>();
+			for(Input input : inputs)
+				if(input.file == null)
+				{
+					final Path root = input.root.toAbsolutePath().normalize();
+					register(watcher, root, true, dirs, trees);
+				}
+				else
+				{
+					register(watcher, input.root, false, dirs, trees);
+					singles.add(input.file);
+				}
+			tell("watching " + dirs.size() + " directories for changes");
+			
+			final LinkedHashSet<Path> touched = new LinkedHashSet<>();
+			while(true)
+			{
+				// Block until the first change, then collect until it has been quiet for a while
+				final WatchKey watchKey = (
+					touched.isEmpty()
+					? watcher.take()
+					: watcher.poll(debounce, TimeUnit.MILLISECONDS)
+				);
+				if(watchKey == null)
+				{
+					final ArrayList<Source> sources = new ArrayList<>();
+					for(Path file : touched)
+						for(Input input : inputs)
+						{
+							final Source src = input.match(file);
+							if(src == null) continue;
+							
+							sources.add(src);
+							break;
+						}
+					touched.clear();
+					if(sources.isEmpty()) continue;
+					
+					run(job, key, cache, sources, out, threads);
+					save(cache, out);
+					continue;
+				}
+				
+				final Path dir = dirs.get(watchKey);
+				for(WatchEvent<?> e : watchKey.pollEvents())
+				{
+					if(e.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						tell("lost track of changes, rescan all sources");
+						final ArrayList<Source> all = new ArrayList<>();
+						for(Input input : inputs) input.collect(all);
+						for(Source src : all) touched.add(src.file.toAbsolutePath().normalize());
+						continue;
+					}
+					
+					final Path path = dir.resolve((Path)e.context());
+					if(!trees.contains(watchKey))
+					{
+						if(singles.contains(path)) touched.add(path);
+					}
+					else if(!Files.isDirectory(path)) touched.add(path);
+					else if(e.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+					{
+						// Files may have been added before the new directory is registered
+						register(watcher, path, true, dirs, trees);
+						try(Stream<Path> files = Files.walk(path)) {
+							files.filter(Files::isRegularFile).forEach(touched::add);
+						}
+					}
+				}
+				if(!watchKey.reset())
+				{
+					dirs.remove(watchKey);
+					trees.remove(watchKey);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Watch the directory for created and modified entries
+	 * 
+	 * @param recursive Whether to also watch all directories under it. Keys of a recursive watch
+	 *     are added to the trees.
+	 */
+	private static void register(
+		WatchService watcher,
+		Path dir,
+		boolean recursive,
+		HashMap<WatchKey, Path> dirs,
+		HashSet<WatchKey> trees
+	) throws IOException {
+		final ArrayList<Path> all = new ArrayList<>();
+		if(!recursive) all.add(dir);
+		else try(Stream<Path> files = Files.walk(dir)) {
+			files.filter(Files::isDirectory).forEach(all::add);
+		}
+		
+		for(Path d : all)
+		{
+			final WatchKey key = d.register(
+				watcher,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY
+			);
+			dirs.put(key, d);
+			if(recursive) trees.add(key);
+		}
+	}
+	
+	private static void save(ConversionCache cache, Path out)
+	{
+		if(cache == null) return;
+		
+		try
+		{
+			if(out != null) Files.createDirectories(out);
+			cache.save();
+		}
+		catch(IOException e)
+		{
+			tell("failed to save cache");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Convert all sources and tell the time of each source and a summary at the end
+	 * 
+	 * @param key Key of the converter in cache
+	 * @param cache Outputs of previous runs, can be {@code null}
+	 */
+	private static void run(
+		Job job,
+		String key,
+		ConversionCache cache,
+		List<Source> sources,
+		Path out,
+		int threads
+	) {
+		tell("converting " + sources.size() + " files on " + threads + " threads");
+		
+		final AtomicInteger failed = new AtomicInteger(), cached = new AtomicInteger();
+		final AtomicLong bytes = new AtomicLong();
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		final long start = System.nanoTime();
+		for(Source src : sources)
+		{
+			pool.execute(() -> {
+				final long begin = System.nanoTime();
+				try
+				{
+					final Path dest = destOf(src, out);
+					if(dest.getParent() != null) Files.createDirectories(dest.getParent());
+					
+					final String hash = cache != null ? ConversionCache.hash(src.file) : null;
+					final boolean reused = cache != null && cache.reuse(hash, key, dest);
+					String note = null;
+					if(reused)
+					{
+						cached.incrementAndGet();
+						note = "cached";
+					}
+					else
+					{
+						note = job.convert(src.file, dest);
+						if(cache != null) cache.put(hash, key, dest);
+					}
+					
+					bytes.addAndGet(Files.size(src.file));
+					final double millis = (System.nanoTime() - begin) / 1E6D;
+					note = note != null ? " (" + note + ")" : "";
+					tell(String.format("%9.1fms %s%s", millis, src.file, note));
+				}
+				catch(Exception e)
+				{
+					failed.incrementAndGet();
+					tell("failed to convert <" + src.file + ">: " + e);
+				}
+			});
+		}
+		
+		pool.shutdown();
+		try { while(!pool.awaitTermination(1L, TimeUnit.MINUTES)); }
+		catch(InterruptedException e)
+		{
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+			return;
+		}
+		
+		final double seconds = (System.nanoTime() - start) / 1E9D;
+		final int done = sources.size() - failed.get();
+		tell(
+			String.format(
+				"converted %d files (%d cached, %d failed) in %.2fs, %.1f files/s, %.2f MB/s",
+				done, cached.get(), failed.get(), seconds, done / seconds,
+				bytes.get() / 1E6D / seconds
+			)
+		);
+	}
+	
+	/**
+	 * Sources given by a file, a directory or a glob pattern
+	 */
+	private static final class Input
+	{
+		/**
+		 * Directory to search, or the parent of a single file
+		 */
+		final Path root;
+		
+		/**
+		 * Absolute path of a single file source, {@code null} otherwise
+		 */
+		final Path file;
+		
+		/**
+		 * Matches paths relative to root for a glob source, {@code null} otherwise
+		 */
+		final PathMatcher matcher;
+		
+		/**
+		 * Extension of the sources to take from directories
+		 */
+		final String ext;
+		
+		Input(String input, String ext)
+		{
+			this.ext = ext;
+			
+			final int glob = indexOfGlob(input);
+			if(glob >= 0)
+			{
+				// Walk from the deepest directory before the first wildcard
+				final int split = Math.max(
+					input.lastIndexOf('/', glob),
+					input.lastIndexOf('\\', glob)
+				);
+				this.root = Paths.get(split < 0 ? "." : input.substring(0, split + 1));
+				this.file = null;
+				this.matcher = FileSystems.getDefault().getPathMatcher(
+					"glob:" + input.substring(split + 1)
+				);
+				return;
+			}
+			
+			final Path path = Paths.get(input);
+			final boolean isDir = Files.isDirectory(path);
+			this.file = isDir ? null : path.toAbsolutePath().normalize();
+			this.root = isDir ? path : this.file.getParent();
+			this.matcher = null;
+		}
+		
+		void collect(List<Source> dst) throws IOException
+		{
+			if(this.file != null)
+			{
+				dst.add(new Source(this.file, this.root));
+				return;
+			}
+			
+			try(Stream<Path> files = Files.walk(this.root)) {
+				dst.addAll(
+					files.filter(Files::isRegularFile)
+						.filter(p -> this.accepts(this.root.relativize(p)))
+						.sorted()
+						.map(p -> new Source(p, this.root))
+						.collect(Collectors.toList())
+				);
+			}
+		}
+		
+		/**
+		 * @param file Absolute path of a changed file
+		 * @return Source of the file or {@code null} if it is not a source of this input
+		 */
+		Source match(Path file)
+		{
+			if(this.file != null)
+				return file.equals(this.file) ? new Source(file, this.root) : null;
+			
+			final Path root = this.root.toAbsolutePath().normalize();
+			if(!file.startsWith(root) || !this.accepts(root.relativize(file))) return null;
+			return Files.isRegularFile(file) ? new Source(file, root) : null;
+		}
+		
+		/**
+		 * @param rel Path of a file relative to root
+		 */
+		private boolean accepts(Path rel)
+		{
+			final String name = rel.getFileName().toString();
+			if(name.endsWith(OUTPUT_SUFFIX)) return false;
+			return this.matcher != null ? this.matcher.matches(rel) : name.endsWith(this.ext);
+		}
+	}
+	
+	private static int indexOfGlob(String input)
+	{
+		for(int i = 0; i < input.length(); ++i)
+			if("*?[{".indexOf(input.charAt(i)) >= 0) return i;
+		return -1;
+	}
+	
+	/**
+	 * @param out Root of the mirror tree or {@code null} to write next to the source
+	 */
+	private static Path destOf(Source src, Path out)
+	{
+		final String name = src.file.getFileName().toString();
+		final int dot = name.lastIndexOf('.');
+		final String dest = (dot > 0 ? name.substring(0, dot) : name) + OUTPUT_SUFFIX;
+		if(out == null) return src.file.resolveSibling(dest);
+		
+		final Path rel = src.root.toAbsolutePath().relativize(src.file.toAbsolutePath());
+		return out.resolve(rel).resolveSibling(dest);
+	}
+	
+	private static void tell(String s) { System.out.print(s + "\n"); }
+}
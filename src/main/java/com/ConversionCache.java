@@ -0,0 +1,206 @@
+package com;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Persistent record of previous conversions so that {@link Batch} only converts sources that
+ * have changed. Each conversion is keyed by the SHA-256 of the source content plus a key of the
+ * converter, its options and {@link #TOOL_VERSION}, and maps to the outputs written for it.
+ * Sources with the same content share their outputs, so a copy of a source is never converted
+ * twice.</p>
+ * 
+ * <p>The manifest is a text file with one conversion per line: content hash, converter key,
+ * output path, output size and output modification time, separated by tabs. An output is only
+ * reused if it still exists with the recorded size and time. Outputs that are gone or have been
+ * changed are dropped on save, as are lines that can not be read.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class ConversionCache
+{
+	/**
+	 * Bump this whenever the output of any converter changes, so outputs of older versions are
+	 * converted again rather than reused
+	 */
+	public static final int TOOL_VERSION = 4;
+	
+	private final Path file;
+	
+	/**
+	 * Content hash + '\t' + converter key : outputs
+	 */
+	private final ConcurrentHashMap<String, List<Output>> entries = new ConcurrentHashMap<>();
+	
+	private static final class Output
+	{
+		final Path path;
+		final long size;
+		final long modified;
+		
+		Output(Path path, long size, long modified)
+		{
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+		}
+		
+		Output(Path path) throws IOException
+		{
+			this(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+		}
+		
+		/**
+		 * @return {@code true} if the output is still there as it was written
+		 */
+		boolean isValid() throws IOException
+		{
+			return(
+				Files.isRegularFile(this.path)
+				&& Files.size(this.path) == this.size
+				&& Files.getLastModifiedTime(this.path).toMillis() == this.modified
+			);
+		}
+	}
+	
+	private ConversionCache(Path file) { this.file = file; }
+	
+	/**
+	 * Load the manifest, or start an empty one if the file does not exist yet
+	 */
+	public static ConversionCache load(Path file) throws IOException
+	{
+		final ConversionCache cache = new ConversionCache(file);
+		if(!Files.exists(file)) return cache;
+		
+		for(String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+		{
+			final String[] split = line.split("\t");
+			if(split.length != 5) continue;
+			
+			try
+			{
+				final Output output = new Output(
+					file.getFileSystem().getPath(split[2]),
+					Long.parseLong(split[3]),
+					Long.parseLong(split[4])
+				);
+				cache.outputsOf(split[0] + '\t' + split[1]).add(output);
+			}
+			catch(RuntimeException e) { } // Malformed line, drop it
+		}
+		return cache;
+	}
+	
+	/**
+	 * @return Key of the converter with given options. Options are kept in their order and with
+	 *     duplicates, as a later option may override an earlier one, e.g. {@code -merge} and
+	 *     {@code -merge=0.1}.
+	 */
+	public static String keyOf(String converter, Iterable<String> options)
+	{
+		final StringBuilder builder = new StringBuilder(converter);
+		for(String option : options) builder.append(' ').append(option);
+		return builder.append(" v").append(TOOL_VERSION).toString();
+	}
+	
+	/**
+	 * @return Hex SHA-256 of the content of the file
+	 */
+	public static String hash(Path file) throws IOException
+	{
+		final MessageDigest digest;
+		try { digest = MessageDigest.getInstance("SHA-256"); }
+		catch(NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+		
+		final byte[] buf = new byte[1 << 16];
+		try(InputStream in = Files.newInputStream(file))
+		{
+			for(int n; (n = in.read(buf)) > 0; ) digest.update(buf, 0, n);
+		}
+		
+		final StringBuilder builder = new StringBuilder(64);
+		for(byte b : digest.digest())
+		{
+			builder.append(Character.forDigit(b >> 4 & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+	
+	/**
+	 * Provide the output of a previous conversion at given destination, copying it over if it was
+	 * written somewhere else
+	 * 
+	 * @return {@code false} if there is no usable output and the source has to be converted
+	 */
+	public boolean reuse(String hash, String key, Path dest) throws IOException
+	{
+		final List<Output> outputs = this.entries.get(hash + '\t' + key);
+		if(outputs == null) return false;
+		
+		final Path target = dest.toAbsolutePath().normalize();
+		Output copy = null;
+		for(Output output : outputs)
+		{
+			if(!output.isValid()) continue;
+			if(output.path.equals(target)) return true;
+			copy = output;
+		}
+		if(copy == null) return false;
+		
+		Files.copy(copy.path, target, StandardCopyOption.REPLACE_EXISTING);
+		this.put(hash, key, target);
+		return true;
+	}
+	
+	/**
+	 * Record that the source with given hash has been converted to given destination
+	 */
+	public void put(String hash, String key, Path dest) throws IOException
+	{
+		final Output output = new Output(dest.toAbsolutePath().normalize());
+		final List<Output> outputs = this.outputsOf(hash + '\t' + key);
+		outputs.removeIf(o -> o.path.equals(output.path));
+		outputs.add(output);
+	}
+	
+	private List<Output> outputsOf(String entry)
+	{
+		return this.entries.computeIfAbsent(entry, k -> new CopyOnWriteArrayList<>());
+	}
+	
+	/**
+	 * Write the manifest to a temporary file and move it over the previous one
+	 */
+	public void save() throws IOException
+	{
+		final Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		try(BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+		{
+			for(Entry<String, List<Output>> e : this.entries.entrySet())
+			{
+				for(Output output : e.getValue())
+				{
+					if(!output.isValid()) continue;
+					
+					out.write(e.getKey() + '\t' + output.path);
+					out.write("\t" + output.size + '\t' + output.modified);
+					out.newLine();
+				}
+			}
+		}
+		Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
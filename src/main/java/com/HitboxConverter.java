@@ -1,227 +1,564 @@
 package com;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import com.util.BinWriter;
+import com.util.Bvh;
 import com.util.CoordSystem;
-import com.util.Vec3f;
+import com.util.NumberWriter;
 
 public class HitboxConverter
 {
 	static final String DEF_SRC = "D:/Work/Java/FMUM-Develop-Util/run/src.java";
 	
+	/**
+	 * Floats of a box in binary output, xyz of the eight vertices
+	 */
+	public static final int BIN_STRIDE = 8 * 3;
+	
+	/**
+	 * Tags of the blocks in binary output. Boxes are in a block for each turbo array. The
+	 * {@link Bvh} nodes and box order are in blocks named {@value #BIN_BVH}.
+	 */
+	public static final int
+		BIN_BOXES = 0,
+		BIN_BVH_NODES = 1,
+		BIN_BVH_ORDER = 2;
+	
+	public static final String BIN_BVH = "bvh";
+	
+	/**
+	 * Usage:
+	 * {@code [-mmap] [-parallel] [-precision=n] [-merge[=tol]] [-model=file] [-bin=file] [-bvh]}
+	 * {@code [src] [dest]}
+	 * 
+	 * <p>With {@code -mmap} the source is memory mapped and scanned on its raw bytes.</p>
+	 * 
+	 * <p>With {@code -parallel} the source is memory mapped and parsed in chunks on all cores.</p>
+	 * 
+	 * <p>With {@code -precision=n} vertex coordinates are rounded to at most {@code n}
+	 * significant digits rather than the shortest digits that read back as the same float.</p>
+	 * 
+	 * <p>With {@code -merge} touching boxes of each turbo array are merged where the merged box
+	 * adds at most given fraction of its volume, {@value Merger#DEF_TOLERANCE} by default. See
+	 * {@link Merger}. It applies to the hitbox outputs but not to {@code -model}.</p>
+	 * 
+	 * <p>With {@code -model=file} the output of {@link ModelConverter} is written to the given
+	 * file from the same parse.</p>
+	 * 
+	 * <p>With {@code -bin=file} the hitboxes are also written to the given file as a binary
+	 * container.</p>
+	 * 
+	 * <p>With {@code -bvh} a bounding volume hierarchy over the hitboxes of all turbo arrays is
+	 * added to the binary container. It only applies to {@code -bin}.</p>
+	 * 
+	 * @see #write(ShapeBoxTable, BinWriter, boolean)
+	 */
 	public static void main(String[] args)
 	{
-		String srcFile = args.length < 1 ? DEF_SRC : args[0];
+		boolean mmap = false, parallel = false, bvh = false;
+		int precision = 0;
+		String modelFile = null, binFile = null;
+		Merger merger = null;
+		final ArrayList<String> paths = new ArrayList<>();
+		for(String arg : args)
+			if(arg.equals("-mmap")) mmap = true;
+			else if(arg.equals("-parallel")) parallel = true;
+			else if(arg.startsWith("-precision="))
+				precision = Integer.parseInt(arg.substring("-precision=".length()));
+			else if(arg.equals("-merge")) merger = new Merger();
+			else if(arg.startsWith("-merge=")) merger = Merger.parse(arg);
+			else if(arg.startsWith("-model=")) modelFile = arg.substring("-model=".length());
+			else if(arg.startsWith("-bin=")) binFile = arg.substring("-bin=".length());
+			else if(arg.equals("-bvh")) bvh = true;
+			else paths.add(arg);
+		
+		String srcFile = paths.size() < 1 ? DEF_SRC : paths.get(0);
 		
 		String destFile;
-		if(args.length < 2)
+		if(paths.size() < 2)
 		{
 			int i = srcFile.lastIndexOf('/');
 			if(i < 0) i = srcFile.lastIndexOf('\\');
 			destFile = srcFile.substring(0, i + 1) + "after.java";
 		}
-		else destFile = args[1];
+		else destFile = paths.get(1);
 		
 		tell("target file is <" + srcFile + ">, dest file is <" + destFile + ">");
+		if(bvh && binFile == null) tell("-bvh only applies to -bin, ignored");
 		
-		final HashMap<String, String>
-			// Turbo-array-name : array-size
-			models = new HashMap<>();
-		
-		final HashMap<String, float[]>
-			// Turbo-array-name + '[' + index : <x, y, z>
-			positions = new HashMap<>(),
+		try
+		{
+			final ShapeBoxTable table = ShapeBoxTable.load(srcFile, mmap, parallel);
 			
-			// Turbo-array-name + '[' + index : rotation
-			rots = new HashMap<>(),
+			try(NumberWriter out = new NumberWriter(new FileWriter(destFile), precision)) {
+				write(table, out, merger);
+			}
+			if(merger != null) merger.report();
 			
-			// Turbo-array-name + '[' + index : <x, y, z>
-			offsets = new HashMap<>(),
+			if(modelFile != null)
+				try(NumberWriter out = new NumberWriter(new FileWriter(modelFile), precision)) {
+					ModelConverter.write(table, out);
+				}
 			
-			// Turbo-array-name + '[' + index : <, x, y, z>
-			lengths = new HashMap<>(),
+			if(binFile != null)
+				try(BinWriter out = new BinWriter(binFile, BinWriter.HITBOX)) {
+					// Merged again without a report as the counts are the same
+					final Merger binMerger = merger != null ? new Merger(merger.tolerance) : null;
+					write(table, out, binMerger, bvh);
+				}
+		}
+		catch(Exception e)
+		{
+			tell("a error occurred will transfering target file...");
+			e.printStackTrace();
+		}
+		
+		tell("complete");
+	}
+	
+	/**
+	 * Job for {@link Batch}. Takes {@code -mmap}, {@code -precision=n} and {@code -merge[=tol]}.
+	 */
+	public static Batch.Job job(List<String> options)
+	{
+		boolean mmap = false;
+		int precision = 0;
+		Merger merger = null;
+		for(String option : options)
+			if(option.equals("-mmap")) mmap = true;
+			else if(option.startsWith("-precision="))
+				precision = Integer.parseInt(option.substring("-precision=".length()));
+			else if(option.equals("-merge")) merger = new Merger();
+			else if(option.startsWith("-merge="))
+			{
+				try { merger = Merger.parse(option); }
+				catch(NumberFormatException e) {
+					throw new IllegalArgumentException("invalid tolerance <" + option + ">", e);
+				}
+			}
+			else throw new IllegalArgumentException("unknown option <" + option + "> for hitbox");
+		
+		// Merger counts boxes, so each source gets its own one and its totals go to the line of
+		// the source
+		final boolean isMmap = mmap;
+		final int digits = precision;
+		final Merger tolerance = merger;
+		return (Path src, Path dest) -> {
+			final ShapeBoxTable table = ShapeBoxTable.load(src.toString(), isMmap, false);
+			final Merger m = tolerance != null ? new Merger(tolerance.tolerance) : null;
+			try(NumberWriter out = new NumberWriter(new FileWriter(dest.toFile()), digits)) {
+				write(table, out, m);
+			}
+			return m != null ? m.summary() : null;
+		};
+	}
+	
+	/**
+	 * Write the eight transformed vertices of each box of the declared turbo arrays as a line
+	 */
+	public static void write(ShapeBoxTable table, NumberWriter out) throws IOException
+	{
+		write(table, out, null);
+	}
+	
+	/**
+	 * @param merger Merges the boxes of each turbo array before they are written, or {@code null}
+	 */
+	public static void write(ShapeBoxTable table, NumberWriter out, Merger merger)
+		throws IOException
+	{
+		final CoordSystem sys = CoordSystem.get();
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			final float[] v = vertices(table, id, sys, merger);
+			for(int off = 0; off < v.length; off += BIN_STRIDE)
+			{
+				out.print('[');
+				for(int j = off; j < off + BIN_STRIDE; j += 3)
+				{
+					out.print(' ').print('(').print(v[j]).print(',');
+					out.print(v[j + 1]).print(',').print(v[j + 2]).print(')');
+				}
+				out.print(' ').print(']').newLine();
+			}
+		}
+		sys.release();
+	}
+	
+	/**
+	 * Write the same vertices as {@link #write(ShapeBoxTable, NumberWriter)} into a block for
+	 * each turbo array. Block name is the array name and each record is the packed xyz of the eight
+	 * vertices, {@value #BIN_STRIDE} floats.
+	 */
+	public static void write(ShapeBoxTable table, BinWriter out) throws IOException
+	{
+		write(table, out, null, false);
+	}
+	
+	public static void write(ShapeBoxTable table, BinWriter out, boolean bvh) throws IOException
+	{
+		write(table, out, null, bvh);
+	}
+	
+	/**
+	 * @param merger Merges the boxes of each turbo array before they are written, or {@code null}
+	 * @param bvh Also build a {@link Bvh} over the bounds of all boxes and write it. Box ids are
+	 *     the index of the box counted across the box blocks in order.
+	 */
+	public static void write(ShapeBoxTable table, BinWriter out, Merger merger, boolean bvh)
+		throws IOException
+	{
+		final CoordSystem sys = CoordSystem.get();
+		float[] bounds = new float[bvh ? 64 * Bvh.BOUNDS_STRIDE : 0];
+		int count = 0;
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			if(table.size(id) < 0) continue;
+			
+			final float[] v = vertices(table, id, sys, merger);
+			out.begin(null, table.name(id), BIN_BOXES, BIN_STRIDE);
+			out.put(v, 0, v.length);
+			out.end();
+			if(!bvh) continue;
 			
-			// Turbo-array-name + '[' + index : <, x0, y0, z0...x7, y7, z7>
-			shapes = new HashMap<>();
-		
-		try(
-			BufferedReader in = new BufferedReader(new FileReader(srcFile));
-			BufferedWriter out = new BufferedWriter(new FileWriter(destFile));
-		) {
-			// Each line in target model file
-			for(String s; (s = in.readLine()) != null; )
+			for(int off = 0; off < v.length; off += BIN_STRIDE)
 			{
-				if(s.length() == 0) continue;
+				if((count + 1) * Bvh.BOUNDS_STRIDE > bounds.length)
+					bounds = Arrays.copyOf(bounds, bounds.length * 2);
+				Bvh.bounds(v, off, 8, bounds, count++ * Bvh.BOUNDS_STRIDE);
+			}
+		}
+		sys.release();
+		
+		if(bvh)
+			Bvh.build(bounds, 0, count).write(out, null, BIN_BVH, BIN_BVH_NODES, BIN_BVH_ORDER);
+	}
+	
+	/**
+	 * Compute the transformed vertices of all boxes of a turbo array
+	 * 
+	 * @param merger Merges the boxes before they are returned, or {@code null}
+	 * @return Packed xyz of the eight vertices of each box left, {@value #BIN_STRIDE} floats each
+	 */
+	static float[] vertices(ShapeBoxTable table, int id, CoordSystem sys, Merger merger)
+	{
+		final int size = Math.max(table.size(id), 0);
+		final float[] v = new float[size * BIN_STRIDE];
+		final float[] box = new float[BIN_STRIDE];
+		int count = 0;
+		for(int i = 0; i < size; ++i)
+			if(vertices(table, id, i, sys, box))
+				System.arraycopy(box, 0, v, count++ * BIN_STRIDE, BIN_STRIDE);
+		
+		if(merger != null) count = merger.merge(v, count);
+		return count * BIN_STRIDE < v.length ? Arrays.copyOf(v, count * BIN_STRIDE) : v;
+	}
+	
+	/**
+	 * Compute the transformed vertices of a box. Boxes without shape box statement are reported.
+	 * 
+	 * @param v Destination of the packed xyz of the eight vertices
+	 * @return {@code false} if the box should be skipped
+	 */
+	private static boolean vertices(ShapeBoxTable table, int id, int i, CoordSystem sys, float[] v)
+	{
+		if(!table.has(id, i, ShapeBoxTable.HAS_SHAPE))
+		{
+			tell("box <" + table.name(id) + "[" + i + "]> has no shape box statement, skipped");
+			return false;
+		}
+		
+		final float[] box = table.values(id);
+		final int off = i * ShapeBoxTable.STRIDE;
+		final int pos = off + ShapeBoxTable.POS;
+		final int rot = off + ShapeBoxTable.ROT;
+		final int offset = off + ShapeBoxTable.OFFSET;
+		final int s = off + ShapeBoxTable.SHAPE;
+		
+		float lenX = box[off + ShapeBoxTable.LENGTH + 0];
+		float lenY = box[off + ShapeBoxTable.LENGTH + 1];
+		float lenZ = box[off + ShapeBoxTable.LENGTH + 2];
+		
+		v[0 * 3 + 0] = 0F - box[s + 0 * 3 + 0];
+		v[0 * 3 + 1] = 0F + box[s + 0 * 3 + 1];
+		v[0 * 3 + 2] = 0F + box[s + 0 * 3 + 2];
+		v[1 * 3 + 0] = lenX + box[s + 1 * 3 + 0];
+		v[1 * 3 + 1] = 0F + box[s + 1 * 3 + 1];
+		v[1 * 3 + 2] = 0F + box[s + 1 * 3 + 2];
+		v[2 * 3 + 0] = lenX + box[s + 2 * 3 + 0];
+		v[2 * 3 + 1] = 0F + box[s + 2 * 3 + 1];
+		v[2 * 3 + 2] = -lenZ - box[s + 2 * 3 + 2];
+		v[3 * 3 + 0] = 0F - box[s + 3 * 3 + 0];
+		v[3 * 3 + 1] = 0F + box[s + 3 * 3 + 1];
+		v[3 * 3 + 2] = -lenZ - box[s + 3 * 3 + 2];
+		v[4 * 3 + 0] = 0F - box[s + 4 * 3 + 0];
+		v[4 * 3 + 1] = -lenY - box[s + 4 * 3 + 1];
+		v[4 * 3 + 2] = 0F + box[s + 4 * 3 + 2];
+		v[5 * 3 + 0] = lenX + box[s + 5 * 3 + 0];
+		v[5 * 3 + 1] = -lenY - box[s + 5 * 3 + 1];
+		v[5 * 3 + 2] = 0F + box[s + 5 * 3 + 2];
+		v[6 * 3 + 0] = lenX + box[s + 6 * 3 + 0];
+		v[6 * 3 + 1] = -lenY - box[s + 6 * 3 + 1];
+		v[6 * 3 + 2] = -lenZ - box[s + 6 * 3 + 2];
+		v[7 * 3 + 0] = 0F - box[s + 7 * 3 + 0];
+		v[7 * 3 + 1] = -lenY - box[s + 7 * 3 + 1];
+		v[7 * 3 + 2] = -lenZ - box[s + 7 * 3 + 2];
+		
+		// Turbo rotates on Z, Y then X in radians. Flipping y and z reverses the rotations on Y
+		// and Z, and the rotations are applied in reverse of the OpenGL order.
+		final float TO_DEGREES = 180F / (float)Math.PI;
+		sys.setDefault();
+		sys.globalTrans(box[pos + 0], -box[pos + 1], -box[pos + 2]);
+		sys.globalRot(box[rot + 0] * TO_DEGREES, CoordSystem.X);
+		sys.globalRot(-box[rot + 1] * TO_DEGREES, CoordSystem.Y);
+		sys.globalRot(-box[rot + 2] * TO_DEGREES, CoordSystem.Z);
+		sys.trans(box[offset + 0], -box[offset + 1], -box[offset + 2]);
+		sys.apply(v, 0, v, 0, 8);
+		return true;
+	}
+	
+	public static void tell(String s) { System.out.print(s + "\n"); }
+	
+	/**
+	 * Merges boxes of a turbo array that touch or overlap into their bounding box where it adds
+	 * little volume. A pair is merged if the volume the merged box adds beyond the two boxes is
+	 * within the tolerance relative to the volume of the merged box. Only boxes that nearly fill
+	 * their own bounds take part, so sheared or rotated boxes are kept as they are.
+	 */
+	public static final class Merger
+	{
+		public static final double DEF_TOLERANCE = 0.05D;
+		
+		/**
+		 * Least extent of a box on each axis in volume measure, so flat boxes still have a volume
+		 */
+		private static final float PAD = 1E-3F;
+		
+		/**
+		 * Gap within which two boxes are still considered touching
+		 */
+		private static final float TOUCH = 1E-4F;
+		
+		public final double tolerance;
+		
+		private long before = 0L, after = 0L;
+		
+		public Merger() { this(DEF_TOLERANCE); }
+		
+		public Merger(double tolerance) { this.tolerance = tolerance; }
+		
+		/**
+		 * Parse tolerance given as {@code -merge=tol}
+		 */
+		static Merger parse(String arg)
+		{
+			return new Merger(Double.parseDouble(arg.substring("-merge=".length())));
+		}
+		
+		/**
+		 * Merge boxes in place. Boxes that are not merged keep their vertices and order. A merged
+		 * box takes the place of the first box merged into it.
+		 * 
+		 * @param v Packed xyz of the eight vertices of each box, {@value #BIN_STRIDE} floats each
+		 * @return Amount of boxes left at the front of given array
+		 */
+		public int merge(float[] v, int count)
+		{
+			final int S = Bvh.BOUNDS_STRIDE;
+			final float[] bounds = new float[count * S];
+			final double[] solid = new double[count];
+			final boolean[] merged = new boolean[count], removed = new boolean[count];
+			final long[] order = new long[count];
+			int candidates = 0;
+			for(int i = 0; i < count; ++i)
+			{
+				Bvh.bounds(v, i * BIN_STRIDE, 8, bounds, i * S);
 				
-				// Obtain model turbo name and size
-				if(s.indexOf("Turbo[") > 0)
-					models.put(
-						s.substring(0, s.indexOf(" =")),
-						s.substring(s.indexOf('[') + 1, s.indexOf(']'))
-					);
-				// Offset, length and shape
-				else if(s.indexOf("].add") > 0)
+				final int b = i * S;
+				final double raw = (double)(bounds[b + 3] - bounds[b])
+					* (bounds[b + 4] - bounds[b + 1]) * (bounds[b + 5] - bounds[b + 2]);
+				final double fill = raw > 0D ? Math.min(volume(v, i * BIN_STRIDE) / raw, 1D) : 1D;
+				solid[i] = measure(bounds, b) * fill;
+				if(fill >= 1D - this.tolerance) order[candidates++] = i;
+			}
+			
+			// Sweep boxes along x and merge each with the touching box that adds the least volume
+			for(boolean changed = true; changed; )
+			{
+				changed = false;
+				int n = 0;
+				for(int k = 0; k < candidates; ++k)
 				{
-					final String key = s.substring(0, s.indexOf(']'));
+					final int i = (int)order[k];
+					if(!removed[i]) order[n++] = (long)sortable(bounds[i * S]) << 32 | i;
+				}
+				candidates = n;
+				Arrays.sort(order, 0, candidates);
+				
+				for(int k = 0; k < candidates; ++k)
+				{
+					final int i = (int)order[k];
+					if(removed[i]) continue;
 					
-					int i = s.indexOf(',');
-					offsets.put(
-						key,
-						new float[] {
-							Float.parseFloat(s.substring(s.indexOf('(') + 1, i)),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1)))
+					final int a = i * S;
+					int best = -1;
+					double bestError = this.tolerance, bestSolid = 0D;
+					for(int l = k + 1; l < candidates; ++l)
+					{
+						final int j = (int)order[l];
+						final int b = j * S;
+						if(bounds[b] > bounds[a + 3] + TOUCH) break;
+						if(removed[j] || !touch(bounds, a, b)) continue;
+						
+						double union = 1D, overlap = 1D;
+						for(int axis = 0; axis < 3; ++axis)
+						{
+							final float min = Math.min(bounds[a + axis], bounds[b + axis]);
+							final float max = Math.max(bounds[a + axis + 3], bounds[b + axis + 3]);
+							union *= Math.max(max - min, PAD);
+							overlap *= Math.max(
+								Math.min(bounds[a + axis + 3], bounds[b + axis + 3])
+								- Math.max(bounds[a + axis], bounds[b + axis]), 0F
+							);
 						}
-					);
-					
-					lengths.put(
-						key,
-						new float[] {
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
+						
+						final double covered = Math.min(union, solid[i] + solid[j] - overlap);
+						final double error = 1D - covered / union;
+						if(error <= bestError)
+						{
+							best = j;
+							bestError = error;
+							bestSolid = covered;
 						}
-					);
-					
-					i = s.indexOf(',', i + 1);
+					}
+					if(best < 0) continue;
 					
-					shapes.put(
-						key,
-						new float[] {
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(')')))
-						}
-					);
-				}
-				else if(s.indexOf("].set") > 0)
-				{
-					int i = s.indexOf('(');
-					positions.put(
-						s.substring(0, s.indexOf(']')),
-						new float[] {
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(',', i + 1))),
-							Float.parseFloat(s.substring(i + 1, i = s.indexOf(')')))
-						}
-					);
-				}
-				else if(s.indexOf("].rot") > 0)
-				{
-					int i = 2;
-					switch(s.charAt(s.indexOf(" =") - 1))
+					final int b = best * S;
+					for(int axis = 0; axis < 3; ++axis)
 					{
-					case 'X': --i;
-					case 'Y': --i;
-					case 'Z': break;
-					default: tell("???");
+						bounds[a + axis] = Math.min(bounds[a + axis], bounds[b + axis]);
+						bounds[a + axis + 3] = Math.max(bounds[a + axis + 3], bounds[b + axis + 3]);
 					}
-					String key = s.substring(0, s.indexOf(']'));
-					float[] buf = rots.get(key);
-					if(buf == null)
-						buf = new float[] { 0F, 0F, 0F };
-					buf[i] = Float.parseFloat(s.substring(s.indexOf("= ") + 2, s.length() - 1));
-					rots.put(key, buf);
+					
+					// Keep the merged box at the place of the first box
+					final int keep = Math.min(i, best);
+					System.arraycopy(bounds, a, bounds, keep * S, S);
+					solid[keep] = bestSolid;
+					merged[keep] = true;
+					removed[Math.max(i, best)] = true;
+					changed = true;
 				}
 			}
 			
-			final float[] DEF_POS_ROT = { 0F, 0F, 0F };
-			final CoordSystem sys = CoordSystem.get();
-			for(Entry<String, String> e : models.entrySet())
-				for(
-					int i = 0, size = Integer.parseInt(e.getValue());
-					i < size;
-					++i
-				) {
-					String key = e.getKey() + "[" + i;
-					float[] pos = positions.get(key);
-					float[] offset = offsets.get(key);
-					float[] rot = rots.get(key);
-					float[] len = lengths.get(key);
-					float[] shape = shapes.get(key);
-					
-					pos = pos == null ? DEF_POS_ROT : pos;
-					rot = rot == null ? DEF_POS_ROT : rot;
-					
-					float lenX = len[0];
-					float lenY = len[1];
-					float lenZ = len[2];
-					
-					Vec3f ver0 = Vec3f.get(0F - shape[0 * 3 + 0], 0F + shape[0 * 3 + 1], 0F + shape[0 * 3 + 2]);
-					Vec3f ver1 = Vec3f.get(lenX + shape[1 * 3 + 0], 0F + shape[1 * 3 + 1], 0F + shape[1 * 3 + 2]);
-					Vec3f ver2 = Vec3f.get(lenX + shape[2 * 3 + 0], 0F + shape[2 * 3 + 1], -lenZ - shape[2 * 3 + 2]);
-					Vec3f ver3 = Vec3f.get(0F - shape[3 * 3 + 0], 0F + shape[3 * 3 + 1], -lenZ - shape[3 * 3 + 2]);
-					Vec3f ver4 = Vec3f.get(0F - shape[4 * 3 + 0], -lenY - shape[4 * 3 + 1], 0F + shape[4 * 3 + 2]);
-					Vec3f ver5 = Vec3f.get(lenX + shape[5 * 3 + 0], -lenY - shape[5 * 3 + 1], 0F + shape[5 * 3 + 2]);
-					Vec3f ver6 = Vec3f.get(lenX + shape[6 * 3 + 0], -lenY - shape[6 * 3 + 1], -lenZ - shape[6 * 3 + 2]);
-					Vec3f ver7 = Vec3f.get(0F - shape[7 * 3 + 0], -lenY - shape[7 * 3 + 1], -lenZ - shape[7 * 3 + 2]);
-					
-					final float TO_DEGREES = 180F / (float)Math.PI;
-					sys.setDefault();
-					sys.globalTrans(pos[0], -pos[1], -pos[2]);
-					sys.globalRot(rot[0] * TO_DEGREES, rot[1], rot[2]);
-					sys.trans(offset[0], -offset[1], -offset[2]);
-					
-					sys.apply(ver0, ver0);
-					sys.apply(ver1, ver1);
-					sys.apply(ver2, ver2);
-					sys.apply(ver3, ver3);
-					sys.apply(ver4, ver4);
-					sys.apply(ver5, ver5);
-					sys.apply(ver6, ver6);
-					sys.apply(ver7, ver7);
-					
-					out.write(
-						"[ " + vToS(ver0) + " " + vToS(ver1) + " " + vToS(ver2) + " " + vToS(ver3)
-						+ " " + vToS(ver4) + " " + vToS(ver5) + " " + vToS(ver6) + " " + vToS(ver7)
-						+ " ]"
+			int left = 0;
+			for(int i = 0; i < count; ++i)
+			{
+				if(removed[i]) continue;
+				
+				final int dst = left++ * BIN_STRIDE;
+				if(merged[i]) corners(bounds, i * S, v, dst);
+				else System.arraycopy(v, i * BIN_STRIDE, v, dst, BIN_STRIDE);
+			}
+			
+			this.before += count;
+			this.after += left;
+			return left;
+		}
+		
+		/**
+		 * @return Total box counts of all turbo arrays merged so far
+		 */
+		public String summary()
+		{
+			return "merged hitboxes from " + this.before + " to " + this.after;
+		}
+		
+		/**
+		 * Tell total box counts of all turbo arrays merged so far
+		 */
+		public void report() { tell(this.summary()); }
+		
+		private static boolean touch(float[] bounds, int a, int b)
+		{
+			for(int axis = 0; axis < 3; ++axis)
+				if(
+					bounds[a + axis] > bounds[b + axis + 3] + TOUCH
+					|| bounds[b + axis] > bounds[a + axis + 3] + TOUCH
+				) return false;
+			return true;
+		}
+		
+		private static double measure(float[] bounds, int off)
+		{
+			return (double)Math.max(bounds[off + 3] - bounds[off], PAD)
+				* Math.max(bounds[off + 4] - bounds[off + 1], PAD)
+				* Math.max(bounds[off + 5] - bounds[off + 2], PAD);
+		}
+		
+		/**
+		 * Volume of a box as the tetrahedrons from its center to the two triangles of each face
+		 */
+		private static double volume(float[] v, int off)
+		{
+			double cx = 0D, cy = 0D, cz = 0D;
+			for(int i = off; i < off + BIN_STRIDE; i += 3)
+			{
+				cx += v[i];
+				cy += v[i + 1];
+				cz += v[i + 2];
+			}
+			cx /= 8D;
+			cy /= 8D;
+			cz /= 8D;
+			
+			double volume = 0D;
+			for(int face = 0; face < 6; ++face)
+			{
+				final int p = off + HitboxQuery.FACES[face * 4] * 3;
+				for(int t = 1; t < 3; ++t)
+				{
+					final int q = off + HitboxQuery.FACES[face * 4 + t] * 3;
+					final int r = off + HitboxQuery.FACES[face * 4 + t + 1] * 3;
+					final double ax = v[p] - cx, ay = v[p + 1] - cy, az = v[p + 2] - cz;
+					final double bx = v[q] - cx, by = v[q + 1] - cy, bz = v[q + 2] - cz;
+					final double dx = v[r] - cx, dy = v[r + 1] - cy, dz = v[r + 2] - cz;
+					volume += Math.abs(
+						ax * (by * dz - bz * dy)
+						+ ay * (bz * dx - bx * dz)
+						+ az * (bx * dy - by * dx)
 					);
-					out.newLine();
 				}
+			}
+			return volume / 6D;
 		}
-		catch(Exception e)
+		
+		/**
+		 * Write the eight vertices of given bounds in the order of {@link HitboxConverter} vertices
+		 */
+		private static void corners(float[] bounds, int off, float[] v, int dst)
 		{
-			tell("a error occurred will transfering target file...");
-			e.printStackTrace();
+			for(int i = 0; i < 8; ++i)
+			{
+				final int d = dst + i * 3;
+				v[d] = bounds[off + ((i + 1 & 2) == 0 ? 0 : 3)];
+				v[d + 1] = bounds[off + (i < 4 ? 4 : 1)];
+				v[d + 2] = bounds[off + ((i & 2) == 0 ? 5 : 2)];
+			}
 		}
 		
-		tell("complete");
+		/**
+		 * Bits of a float that sort as signed integers in the same order as the floats
+		 */
+		private static int sortable(float f)
+		{
+			final int bits = Float.floatToIntBits(f);
+			return bits ^ bits >> 31 & 0x7FFFFFFF;
+		}
 	}
-	
-	public static String vToS(Vec3f v) { return "(" + v.x + "," + v.y + "," + v.z + ")"; }
-	
-	public static void tell(String s) { System.out.print(s + "\n"); }
 }
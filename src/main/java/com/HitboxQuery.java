@@ -0,0 +1,488 @@
+package com;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.util.BinReader;
+import com.util.BinWriter;
+import com.util.Bvh;
+import com.util.ByteScanner;
+import com.util.LineScanner;
+
+/**
+ * <p>Ray casts against the hitboxes written by {@link HitboxConverter}. Shape boxes are convex
+ * hexahedra of eight arbitrary corners, so each box is kept as the six planes of its faces and a
+ * ray hits the box where it has entered all of them. A face whose four corners do not lie on one
+ * plane is flattened to the plane through its center with its average normal, and the box is
+ * clipped by the bounds of its corners so that such a plane can not make it reach out of them.
+ * Boxes are found through a {@link Bvh} over their bounds.</p>
+ * 
+ * <p>Rays are cast in batches of {@value #RAY_STRIDE} floats each: origin, direction and max
+ * distance. The direction does not have to be normalized, distances are always in the unit of
+ * the coordinates. A ray that starts inside a box hits it at distance {@code 0} with a zero normal.
+ * A query never changes after it is built, so batches can be cast from any amount of threads.</p>
+ * 
+ * @see HitboxConverter#write(ShapeBoxTable, BinWriter, boolean)
+ * @author Giant_Salted_Fish
+ */
+public final class HitboxQuery
+{
+	/**
+	 * Floats of a ray: origin xyz, direction xyz and max distance
+	 */
+	public static final int RAY_STRIDE = 7;
+	
+	/**
+	 * Floats of a hit: distance and normal xyz
+	 */
+	public static final int HIT_STRIDE = 4;
+	
+	/**
+	 * Floats of a plane: normal xyz and {@code d}, a point {@code p} is inside if
+	 * {@code normal . p <= d}
+	 */
+	private static final int PLANE_STRIDE = 4;
+	
+	/**
+	 * Floats of a box: its six planes and then its bounds
+	 */
+	private static final int
+		BOUNDS = 6 * PLANE_STRIDE,
+		BOX_STRIDE = BOUNDS + Bvh.BOUNDS_STRIDE;
+	
+	/**
+	 * Opposite faces closer than this relative to their distance from origin are on one plane
+	 */
+	private static final float FLAT_EPSILON = 1E-5F;
+	
+	/**
+	 * Vertex indices of the faces in the order of {@link HitboxConverter} vertices. Faces come in
+	 * pairs of opposite faces: top and bottom, front and back, left and right.
+	 */
+	static final int[] FACES = {
+		0, 1, 2, 3,  4, 5, 6, 7,
+		0, 1, 5, 4,  3, 2, 6, 7,
+		0, 3, 7, 4,  1, 2, 6, 5
+	};
+	
+	private final float[] boxes;
+	
+	private final Bvh bvh;
+	
+	/**
+	 * @param vertices Packed xyz of the eight vertices of each box
+	 * @param bvh Tree over the boxes or {@code null} to build one
+	 */
+	public HitboxQuery(float[] vertices, int count, Bvh bvh)
+	{
+		final int stride = HitboxConverter.BIN_STRIDE;
+		final float[] bounds = new float[count * Bvh.BOUNDS_STRIDE];
+		this.boxes = new float[count * BOX_STRIDE];
+		for(int i = 0; i < count; ++i)
+		{
+			final int b = i * Bvh.BOUNDS_STRIDE;
+			Bvh.bounds(vertices, i * stride, 8, bounds, b);
+			planes(vertices, i * stride, this.boxes, i * BOX_STRIDE);
+			System.arraycopy(bounds, b, this.boxes, i * BOX_STRIDE + BOUNDS, Bvh.BOUNDS_STRIDE);
+		}
+		
+		if(bvh == null) bvh = Bvh.build(bounds, 0, count);
+		else if(bvh.boxCount() != count)
+			throw new IllegalArgumentException(
+				"tree of " + bvh.boxCount() + " boxes given for " + count + " boxes"
+			);
+		this.bvh = bvh;
+	}
+	
+	/**
+	 * Load the boxes of a text or binary output of {@link HitboxConverter}
+	 */
+	public static HitboxQuery load(String file) throws IOException
+	{
+		final ByteBuffer buf = ByteScanner.mapFile(file);
+		final boolean isBin = (
+			buf.limit() >= Integer.BYTES
+			&& buf.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(0) == BinWriter.MAGIC
+		);
+		if(isBin) return read(new BinReader(buf));
+		
+		try(LineScanner in = new ByteScanner(buf)) { return read(in); }
+	}
+	
+	/**
+	 * Read the box blocks of a binary container, in the order they are stored. Uses the tree in the
+	 * container if there is one.
+	 */
+	public static HitboxQuery read(BinReader in) throws IOException
+	{
+		if(in.kind() != BinWriter.HITBOX) throw new IOException("not a hitbox container");
+		
+		final int stride = HitboxConverter.BIN_STRIDE;
+		int count = 0;
+		for(int i = 0; i < in.blockCount(); ++i)
+			if(in.tag(i) == HitboxConverter.BIN_BOXES) count += in.count(i);
+		
+		final float[] vertices = new float[count * stride];
+		for(int i = 0, off = 0; i < in.blockCount(); ++i)
+		{
+			if(in.tag(i) != HitboxConverter.BIN_BOXES) continue;
+			if(in.stride(i) != stride) throw new IOException("invalid stride of block <" + i + ">");
+			
+			final FloatBuffer floats = in.floats(i);
+			final int len = floats.remaining();
+			floats.get(vertices, off, len);
+			off += len;
+		}
+		
+		final int nodes = in.indexOf(null, HitboxConverter.BIN_BVH, HitboxConverter.BIN_BVH_NODES);
+		final int order = in.indexOf(null, HitboxConverter.BIN_BVH, HitboxConverter.BIN_BVH_ORDER);
+		final Bvh bvh = nodes < 0 || order < 0 ? null : Bvh.read(in, nodes, order);
+		return new HitboxQuery(vertices, count, bvh);
+	}
+	
+	/**
+	 * Read the lines of a text output. Box ids are the order of the lines.
+	 */
+	public static HitboxQuery read(LineScanner in) throws IOException
+	{
+		final int stride = HitboxConverter.BIN_STRIDE;
+		float[] vertices = new float[64 * stride];
+		int count = 0;
+		while(in.nextLine())
+		{
+			if(in.length() == 0 || in.charAt(0) != '[') continue;
+			
+			if((count + 1) * stride > vertices.length)
+				vertices = Arrays.copyOf(vertices, vertices.length * 2);
+			in.nextFloats(vertices, count++ * stride, stride);
+		}
+		return new HitboxQuery(vertices, count, null);
+	}
+	
+	public int boxCount() { return this.boxes.length / BOX_STRIDE; }
+	
+	/**
+	 * Fill in a ray that ends at given distance
+	 */
+	public static void setRay(
+		float[] rays, int off,
+		float x, float y, float z,
+		float dx, float dy, float dz,
+		float maxDistance
+	) {
+		rays[off + 0] = x;
+		rays[off + 1] = y;
+		rays[off + 2] = z;
+		rays[off + 3] = dx;
+		rays[off + 4] = dy;
+		rays[off + 5] = dz;
+		rays[off + 6] = maxDistance;
+	}
+	
+	/**
+	 * Fill in a ray that goes from one point to the other
+	 */
+	public static void setSegment(
+		float[] rays, int off,
+		float x0, float y0, float z0,
+		float x1, float y1, float z1
+	) {
+		final float dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+		setRay(rays, off, x0, y0, z0, dx, dy, dz, (float)Math.sqrt(dx * dx + dy * dy + dz * dz));
+	}
+	
+	/**
+	 * Find the nearest box hit by each ray
+	 * 
+	 * @param rays Rays to cast, {@value #RAY_STRIDE} floats each
+	 * @param ids Destination of the id of the box hit by each ray, {@code -1} if it hits nothing
+	 * @param hits
+	 *     Destination of distance and normal of each hit, {@value #HIT_STRIDE} floats each. Misses
+	 *     have infinite distance and a zero normal.
+	 * @return Amount of rays that hit a box
+	 */
+	public int cast(float[] rays, int off, int count, int[] ids, int ioff, float[] hits, int hoff)
+	{
+		// Scratch shared by all rays of the batch
+		final int[] stack = new int[this.bvh.depth() + 1];
+		final float[] nears = new float[stack.length];
+		final float[] ray = new float[9];
+		final int[] face = new int[1];
+		
+		int hitCount = 0;
+		for(int r = 0; r < count; ++r)
+		{
+			final int h = hoff + r * HIT_STRIDE;
+			final int id = this.cast(rays, off + r * RAY_STRIDE, stack, nears, ray, face, hits, h);
+			ids[ioff + r] = id;
+			if(id >= 0) ++hitCount;
+		}
+		return hitCount;
+	}
+	
+	/**
+	 * @param stack Nodes to visit
+	 * @param nears Distance to the bounds of each node in stack
+	 * @param ray Scratch for origin, normalized direction and its inverse
+	 */
+	private int cast(
+		float[] rays, int r,
+		int[] stack, float[] nears, float[] ray, int[] face,
+		float[] hits, int h
+	) {
+		hits[h] = Float.POSITIVE_INFINITY;
+		hits[h + 1] = hits[h + 2] = hits[h + 3] = 0F;
+		
+		final float dx = rays[r + 3], dy = rays[r + 4], dz = rays[r + 5];
+		final float len = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if(len == 0F || this.bvh.nodeCount() == 0) return -1;
+		
+		for(int i = 0; i < 3; ++i)
+		{
+			ray[i] = rays[r + i];
+			ray[i + 3] = rays[r + 3 + i] / len;
+			ray[i + 6] = 1F / ray[i + 3];
+		}
+		
+		final float[] bounds = this.bvh.bounds();
+		final int[] nodes = this.bvh.nodes();
+		final int[] order = this.bvh.order();
+		float best = rays[r + 6];
+		int bestId = -1, bestFace = -1;
+		int top = 0;
+		stack[top] = 0;
+		nears[top++] = slab(bounds, 0, ray);
+		while(top > 0)
+		{
+			// Node may have been culled by a nearer hit found since it was pushed
+			final int node = stack[--top];
+			if(!(nears[top] <= best)) continue;
+			
+			final int first = nodes[node * Bvh.NODE_STRIDE];
+			final int n = nodes[node * Bvh.NODE_STRIDE + 1];
+			if(n > 0)
+			{
+				for(int i = first; i < first + n; ++i)
+				{
+					final int id = order[i];
+					final float t = castBox(this.boxes, id * BOX_STRIDE, ray, best, face);
+					if(t >= 0F && (t < best || bestId < 0))
+					{
+						best = t;
+						bestId = id;
+						bestFace = face[0];
+					}
+				}
+				continue;
+			}
+			
+			// Visit the nearer child first so that the farther one is more likely to be culled
+			final float near = slab(bounds, first * Bvh.BOUNDS_STRIDE, ray);
+			final float far = slab(bounds, (first + 1) * Bvh.BOUNDS_STRIDE, ray);
+			final boolean swap = far < near;
+			if((swap ? near : far) <= best)
+			{
+				stack[top] = swap ? first : first + 1;
+				nears[top++] = swap ? near : far;
+			}
+			if((swap ? far : near) <= best)
+			{
+				stack[top] = swap ? first + 1 : first;
+				nears[top++] = swap ? far : near;
+			}
+		}
+		if(bestId < 0) return -1;
+		
+		hits[h] = best;
+		if(bestFace >= 6)
+		{
+			// Entered through the bounds of the box
+			final int axis = (bestFace - 6) / 2;
+			hits[h + 1 + axis] = (bestFace & 1) == 0 ? -1F : 1F;
+		}
+		else if(bestFace >= 0)
+		{
+			final int p = bestId * BOX_STRIDE + bestFace * PLANE_STRIDE;
+			hits[h + 1] = this.boxes[p];
+			hits[h + 2] = this.boxes[p + 1];
+			hits[h + 3] = this.boxes[p + 2];
+		}
+		return bestId;
+	}
+	
+	/**
+	 * Clip the ray by the bounds and then each plane of a box
+	 * 
+	 * @param face
+	 *     Receives the face the ray enters through: {@code 0} to {@code 5} for a plane,
+	 *     {@code 6 + axis * 2} for the min and {@code 7 + axis * 2} for the max side of the bounds,
+	 *     {@code -1} if it starts inside
+	 * @return Distance to the box or {@code -1} if it is missed within given distance
+	 */
+	private static float castBox(float[] boxes, int p, float[] ray, float max, int[] face)
+	{
+		float enter = 0F, exit = max;
+		int enterFace = -1;
+		final int b = p + BOUNDS;
+		for(int a = 0; a < 3; ++a)
+		{
+			final float o = ray[a], d = ray[a + 3];
+			if(d == 0F)
+			{
+				if(o < boxes[b + a] || o > boxes[b + a + 3]) return -1F;
+				continue;
+			}
+			
+			final boolean positive = d > 0F;
+			final float t0 = (boxes[b + a] - o) * ray[a + 6];
+			final float t1 = (boxes[b + a + 3] - o) * ray[a + 6];
+			final float in = positive ? t0 : t1, out = positive ? t1 : t0;
+			if(in > enter)
+			{
+				enter = in;
+				enterFace = 6 + a * 2 + (positive ? 0 : 1);
+			}
+			if(out < exit) exit = out;
+		}
+		if(enter > exit) return -1F;
+		
+		for(int i = 0; i < 6; ++i, p += PLANE_STRIDE)
+		{
+			final float nx = boxes[p], ny = boxes[p + 1], nz = boxes[p + 2];
+			final float denom = nx * ray[3] + ny * ray[4] + nz * ray[5];
+			final float dist = boxes[p + 3] - (nx * ray[0] + ny * ray[1] + nz * ray[2]);
+			if(denom == 0F)
+			{
+				if(dist < 0F) return -1F;
+				continue;
+			}
+			
+			final float t = dist / denom;
+			if(denom < 0F)
+			{
+				if(t > enter)
+				{
+					enter = t;
+					enterFace = i;
+				}
+			}
+			else if(t < exit) exit = t;
+			
+			if(enter > exit) return -1F;
+		}
+		
+		face[0] = enterFace;
+		return enter;
+	}
+	
+	/**
+	 * @return Distance to where the ray enters given bounds, or {@link Float#POSITIVE_INFINITY} if
+	 *     it misses them
+	 */
+	private static float slab(float[] bounds, int b, float[] ray)
+	{
+		// NaN comes from a zero direction on the bounds and leaves the range as it is
+		float near = 0F, far = Float.POSITIVE_INFINITY;
+		for(int a = 0; a < 3; ++a)
+		{
+			final float t0 = (bounds[b + a] - ray[a]) * ray[a + 6];
+			final float t1 = (bounds[b + a + 3] - ray[a]) * ray[a + 6];
+			final boolean ordered = t0 <= t1;
+			final float in = ordered ? t0 : t1, out = ordered ? t1 : t0;
+			if(in > near) near = in;
+			if(out < far) far = out;
+		}
+		return near <= far ? near : Float.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Compute the six outward face planes of a box
+	 */
+	private static void planes(float[] v, int off, float[] dst, int doff)
+	{
+		for(int f = 0; f < 6; f += 2)
+		{
+			final int a = doff + f * PLANE_STRIDE, b = a + PLANE_STRIDE;
+			facePlane(v, off, f, dst, a);
+			facePlane(v, off, f + 1, dst, b);
+			
+			// Point each normal away from the opposite face
+			final float da = dst[a + 3] - side(dst, a, v, off, f + 1);
+			final float db = dst[b + 3] - side(dst, b, v, off, f);
+			orient(dst, a, da);
+			orient(dst, b, db);
+			
+			// A flat box has both faces on one plane, make them face away from each other
+			final float eps = FLAT_EPSILON * (1F + Math.abs(dst[a + 3]));
+			final boolean flat = Math.abs(da) <= eps && Math.abs(db) <= eps;
+			if(flat && dot(dst, a, dst, b) > 0F) orient(dst, b, -1F);
+		}
+	}
+	
+	/**
+	 * Plane through the center of a face with its average normal by Newell's method. Leaves the
+	 * plane zero if the face has no area.
+	 */
+	private static void facePlane(float[] v, int off, int face, float[] dst, int doff)
+	{
+		float nx = 0F, ny = 0F, nz = 0F, cx = 0F, cy = 0F, cz = 0F;
+		for(int i = 0; i < 4; ++i)
+		{
+			final int p = off + FACES[face * 4 + i] * 3;
+			final int q = off + FACES[face * 4 + (i + 1) % 4] * 3;
+			nx += (v[p + 1] - v[q + 1]) * (v[p + 2] + v[q + 2]);
+			ny += (v[p + 2] - v[q + 2]) * (v[p] + v[q]);
+			nz += (v[p] - v[q]) * (v[p + 1] + v[q + 1]);
+			cx += v[p];
+			cy += v[p + 1];
+			cz += v[p + 2];
+		}
+		
+		final float len = (float)Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if(len == 0F)
+		{
+			dst[doff] = dst[doff + 1] = dst[doff + 2] = dst[doff + 3] = 0F;
+			return;
+		}
+		
+		nx /= len;
+		ny /= len;
+		nz /= len;
+		dst[doff] = nx;
+		dst[doff + 1] = ny;
+		dst[doff + 2] = nz;
+		dst[doff + 3] = (nx * cx + ny * cy + nz * cz) / 4F;
+	}
+	
+	/**
+	 * @return {@code normal . center} of given face for the normal of given plane
+	 */
+	private static float side(float[] plane, int p, float[] v, int off, int face)
+	{
+		float s = 0F;
+		for(int i = 0; i < 4; ++i)
+		{
+			final int q = off + FACES[face * 4 + i] * 3;
+			s += plane[p] * v[q] + plane[p + 1] * v[q + 1] + plane[p + 2] * v[q + 2];
+		}
+		return s / 4F;
+	}
+	
+	/**
+	 * Flip the plane if given sign is negative
+	 */
+	private static void orient(float[] plane, int p, float sign)
+	{
+		if(!(sign < 0F)) return;
+		
+		for(int i = 0; i < PLANE_STRIDE; ++i) plane[p + i] = -plane[p + i];
+	}
+	
+	private static float dot(float[] a, int aoff, float[] b, int boff)
+	{
+		return a[aoff] * b[boff] + a[aoff + 1] * b[boff + 1] + a[aoff + 2] * b[boff + 2];
+	}
+}
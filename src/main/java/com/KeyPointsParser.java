@@ -1,19 +1,29 @@
 package com;
 
-import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.util.Animation;
+import com.util.BinReader;
+import com.util.BinWriter;
+import com.util.KeyframeTrack;
+import com.util.NumberWriter;
 
 public class KeyPointsParser
 {
@@ -21,103 +31,686 @@ public class KeyPointsParser
 	
 	static Pattern KEY_PATTERN = Pattern.compile("\".*\"");
 	
+	/**
+	 * Tags of the blocks in binary output. The length block has a single record, the position and
+	 * rotation blocks have {@value #BIN_STRIDE} floats for each key frame: x, y, z and time.
+	 */
+	public static final int
+		BIN_LENGTH = 0,
+		BIN_POS = 1,
+		BIN_ROT = 2;
+	
+	public static final int BIN_STRIDE = 4;
+	
+	/**
+	 * Usage: {@code [-stream] [-reduce[=pos[,rot]]] [-precision=n] [-bin=file] [src] [dest]}
+	 * 
+	 * <p>With {@code -stream} the animation file is walked token by token and the lines are written
+	 * out as soon as a bone has been read, so only the key frames of one bone are in memory.</p>
+	 * 
+	 * <p>With {@code -reduce} key frames that can be interpolated from their neighbors are dropped.
+	 * Tolerances of position and rotation in degrees can be given after it, default
+	 * {@value Reducer#DEF_POS_TOLERANCE} and {@value Reducer#DEF_ROT_TOLERANCE}. Rotation keeps its
+	 * default if only the position is given.</p>
+	 * 
+	 * <p>With {@code -precision=n} values are rounded to at most {@code n} significant digits
+	 * rather than the shortest digits that read back as the same double.</p>
+	 * 
+	 * <p>With {@code -bin=file} the key frames are also written to the given file as a binary
+	 * container. Each bone has a position and a rotation block grouped by the animation name, and
+	 * each animation has a length block named after itself.</p>
+	 * 
+	 * @see #stream(JsonParser, NumberWriter, Reducer, BinWriter)
+	 * @see #read(BinReader)
+	 * @see KeyframeTrack#reduce(double)
+	 */
 	public static void main(String[] args)
 	{
-		String srcFile = args.length < 1 ? DEF_SRC : args[0];
+		boolean stream = false;
+		Reducer reducer = null;
+		int precision = 0;
+		String binFile = null;
+		final ArrayList<String> paths = new ArrayList<>();
+		for(String arg : args)
+			if(arg.equals("-stream")) stream = true;
+			else if(arg.equals("-reduce")) reducer = new Reducer();
+			else if(arg.startsWith("-reduce="))
+			{
+				try { reducer = Reducer.parse(arg); }
+				catch(NumberFormatException e)
+				{
+					tell("invalid tolerance <" + arg + ">");
+					return;
+				}
+			}
+			else if(arg.startsWith("-precision="))
+				precision = Integer.parseInt(arg.substring("-precision=".length()));
+			else if(arg.startsWith("-bin=")) binFile = arg.substring("-bin=".length());
+			else paths.add(arg);
+		
+		String srcFile = paths.size() < 1 ? DEF_SRC : paths.get(0);
 		
 		String destFile;
-		if(args.length < 2)
+		if(paths.size() < 2)
 		{
 			int i = srcFile.lastIndexOf('/');
 			if(i < 0) i = srcFile.lastIndexOf('\\');
 			destFile = srcFile.substring(0, i + 1) + "after.java";
 		}
-		else destFile = args[1];
+		else destFile = paths.get(1);
 		
 		tell("target file is <" + srcFile + ">, dest file is <" + destFile + ">");
 		
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		if(stream)
+		{
+			try(
+				JsonParser in = new JsonFactory().createParser(new File(srcFile));
+				NumberWriter out = new NumberWriter(new FileWriter(new File(destFile)), precision);
+				BinWriter bin = openBin(binFile);
+			) { stream(in, out, reducer, bin); }
+			catch(IOException e)
+			{
+				e.printStackTrace();
+				return;
+			}
+			
+			if(reducer != null) reducer.report();
+			tell("complete");
+			return;
+		}
 		
 		JsonNode base;
-		try { base = mapper.readValue(new File(srcFile), JsonNode.class); }
+		try { base = newMapper().readValue(new File(srcFile), JsonNode.class); }
 		catch(IOException e)
 		{
 			e.printStackTrace();
 			return;
 		}
 		
-		ByteArrayOutputStream s = new ByteArrayOutputStream();
-		try(BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s))) { out.newLine(); }
-		catch(IOException e) { e.printStackTrace(); }
-		String separator = new String(s.toByteArray());
+		try(
+			NumberWriter out = new NumberWriter(new FileWriter(new File(destFile)), precision);
+			BinWriter bin = openBin(binFile);
+		) { write(base, out, reducer, bin); }
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			return;
+		}
 		
-		StringBuilder builder = new StringBuilder(1024);
+		if(reducer != null) reducer.report();
+		tell("complete");
+	}
+	
+	/**
+	 * Job for {@link Batch}. Takes {@code -stream}, {@code -reduce[=pos[,rot]]} and
+	 * {@code -precision=n}. All sources are read through one shared {@link ObjectMapper}.
+	 */
+	public static Batch.Job job(List<String> options)
+	{
+		boolean stream = false;
+		Reducer reducer = null;
+		int precision = 0;
+		for(String option : options)
+			if(option.equals("-stream")) stream = true;
+			else if(option.equals("-reduce")) reducer = new Reducer();
+			else if(option.startsWith("-reduce="))
+			{
+				try { reducer = Reducer.parse(option); }
+				catch(NumberFormatException e) {
+					throw new IllegalArgumentException("invalid tolerance <" + option + ">", e);
+				}
+			}
+			else if(option.startsWith("-precision="))
+				precision = Integer.parseInt(option.substring("-precision=".length()));
+			else
+				throw new IllegalArgumentException("unknown option <" + option + "> for animation");
+		
+		// Reducer counts key frames, so each source gets its own quiet one and its totals go to
+		// the line of the source
+		final boolean isStream = stream;
+		final Reducer tolerance = reducer;
+		final int digits = precision;
+		final ObjectMapper mapper = newMapper();
+		return (Path src, Path dest) -> {
+			final Reducer r = (
+				tolerance != null
+				? new Reducer(tolerance.posTolerance, tolerance.rotTolerance, false)
+				: null
+			);
+			
+			try(NumberWriter out = new NumberWriter(new FileWriter(dest.toFile()), digits))
+			{
+				if(!isStream) write(mapper.readTree(src.toFile()), out, r, null);
+				else try(JsonParser in = mapper.getFactory().createParser(src.toFile())) {
+					stream(in, out, r, null);
+				}
+			}
+			return r != null ? r.summary() : null;
+		};
+	}
+	
+	/**
+	 * Write the {@code .appendPos} and {@code .appendRot} lines of all animations in given tree
+	 */
+	public static void write(JsonNode base, NumberWriter out) throws IOException
+	{
+		write(base, out, null, null);
+	}
+	
+	/**
+	 * @param reducer Reduces key frames of each bone before they are written, can be {@code null}
+	 * @param bin Also write the key frames to this binary container, can be {@code null}
+	 */
+	public static void write(JsonNode base, NumberWriter out, Reducer reducer, BinWriter bin)
+		throws IOException
+	{
+		final KeyframeTrack pos = new KeyframeTrack(), rot = new KeyframeTrack();
 		for(Iterator<Entry<String, JsonNode>> i = base.get("animations").fields(); i.hasNext(); )
 		{
 			Entry<String, JsonNode> entry = i.next();
 			JsonNode ani = entry.getValue();
-			double length = ani.get("animation_length").asDouble();
-			builder.append("/// ").append(entry.getKey()).append(": ")
-				.append(length).append("s ///").append(separator);
+			final String name = entry.getKey();
+			writeHeader(out, bin, name, ani.get("animation_length").asDouble());
 			
 			for(Iterator<Entry<String, JsonNode>> j = ani.get("bones").fields(); j.hasNext(); )
 			{
 				entry = j.next();
-				builder.append("// ").append(entry.getKey()).append(separator);
-				
-				// Position
-				ArrayList<Entry<String, JsonNode>> nodes = new ArrayList<>();
-				readAllPointsFrom(entry.getValue().get("position"), nodes);
-				
-				if(nodes.size() == 0)
-					builder.append(".appendPos(0D, 0D, 0D, 0D)").append(separator);
-				else for(Entry<String, JsonNode> n : nodes)
-					builder.append(".appendPos(").append(toVecStr(n))
-						.append(n.getKey()).append("D)").append(separator);
-				
-				// Rotation
-				nodes.clear();
-				readAllPointsFrom(entry.getValue().get("rotation"), nodes);
-				
-				if(nodes.size() == 0)
-					builder.append(".appendRot(0D, 0D, 0D, 0D)").append(separator);
-				else for(Entry<String, JsonNode> n : nodes)
-					builder.append(".appendRot(").append(toVecStr(n))
-						.append(n.getKey()).append("D)").append(separator);
-				
-				builder.append(separator);
+				readAllPointsFrom(entry.getValue().get("position"), pos.clear());
+				readAllPointsFrom(entry.getValue().get("rotation"), rot.clear());
+				writeBone(out, bin, name, entry.getKey(), pos, rot, reducer);
+			}
+		}
+	}
+	
+	/**
+	 * <p>Convert the animations in the given parser to the same lines as the tree mode writes. Each
+	 * bone is written out once it has been read, so the heap use is bounded by the key frames of
+	 * one bone.</p>
+	 * 
+	 * <p>The header of an animation needs its {@code animation_length}. If {@code bones} comes
+	 * first in the animation, the lines of that animation are buffered until the end of it.</p>
+	 */
+	public static void stream(JsonParser in, NumberWriter out) throws IOException
+	{
+		stream(in, out, null, null);
+	}
+	
+	/**
+	 * @param reducer Reduces key frames of each bone before they are written, can be {@code null}
+	 * @param bin Also write the key frames to this binary container, can be {@code null}
+	 */
+	public static void stream(JsonParser in, NumberWriter out, Reducer reducer, BinWriter bin)
+		throws IOException
+	{
+		expect(in, in.nextToken(), JsonToken.START_OBJECT);
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final String field = in.getCurrentName();
+			in.nextToken();
+			if(field.equals("animations")) streamAnimations(in, out, reducer, bin);
+			else in.skipChildren();
+		}
+	}
+	
+	/**
+	 * Read all animations of an animation file for sampling
+	 * 
+	 * @see Animation#sample(double, double[], int)
+	 */
+	public static ArrayList<Animation> load(String file) throws IOException
+	{
+		try(JsonParser in = new JsonFactory().createParser(new File(file))) { return read(in); }
+	}
+	
+	/**
+	 * Read all animations in the given parser. Key frames of each bone are sorted by time.
+	 */
+	public static ArrayList<Animation> read(JsonParser in) throws IOException
+	{
+		final ArrayList<Animation> animations = new ArrayList<>();
+		expect(in, in.nextToken(), JsonToken.START_OBJECT);
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final boolean isAnimations = in.getCurrentName().equals("animations");
+			in.nextToken();
+			if(!isAnimations)
+			{
+				in.skipChildren();
+				continue;
 			}
+			
+			expect(in, in.getCurrentToken(), JsonToken.START_OBJECT);
+			while(in.nextToken() == JsonToken.FIELD_NAME)
+				animations.add(readAnimation(in, in.getCurrentName()));
 		}
+		return animations;
+	}
+	
+	/**
+	 * Read all animations in a binary container written with {@code -bin}. Animations are in the
+	 * order of their length blocks and bones in the order of their position blocks.
+	 */
+	public static ArrayList<Animation> read(BinReader in) throws IOException
+	{
+		if(in.kind() != BinWriter.ANIMATION)
+			throw new IOException("container does not hold animations <" + in.kind() + ">");
+		
+		final ArrayList<Animation> animations = new ArrayList<>();
+		for(int i = 0; i < in.blockCount(); ++i)
+			if(in.tag(i) == BIN_LENGTH)
+				animations.add(new Animation(in.name(i), in.floats(i).get(0)));
 		
-		try(BufferedWriter out = new BufferedWriter(new FileWriter(new File(destFile)))) {
-			out.write(builder.toString());
+		for(int i = 0; i < in.blockCount(); ++i)
+		{
+			if(in.tag(i) != BIN_POS) continue;
+			
+			Animation ani = null;
+			for(Animation a : animations)
+				if(a.name.equals(in.group(i))) ani = a;
+			if(ani == null) throw new IOException("no length block for <" + in.group(i) + ">");
+			
+			final int rot = in.indexOf(in.group(i), in.name(i), BIN_ROT);
+			final KeyframeTrack rotTrack = rot < 0 ? new KeyframeTrack() : readTrack(in, rot);
+			ani.add(in.name(i), readTrack(in, i), rotTrack);
 		}
-		catch(Exception e)
+		return animations;
+	}
+	
+	private static KeyframeTrack readTrack(BinReader in, int block)
+	{
+		final FloatBuffer buf = in.floats(block);
+		final KeyframeTrack track = new KeyframeTrack(in.count(block));
+		for(int i = 0; i < buf.limit(); i += BIN_STRIDE)
+			track.add(buf.get(i + 3), buf.get(i), buf.get(i + 1), buf.get(i + 2));
+		return track;
+	}
+	
+	private static Animation readAnimation(JsonParser in, String name) throws IOException
+	{
+		expect(in, in.nextToken(), JsonToken.START_OBJECT);
+		
+		// Bones may come before the length that is needed to create the animation
+		double length = 0D;
+		final ArrayList<String> bones = new ArrayList<>();
+		final ArrayList<KeyframeTrack> tracks = new ArrayList<>();
+		while(in.nextToken() == JsonToken.FIELD_NAME)
 		{
-			e.printStackTrace();
+			final String field = in.getCurrentName();
+			in.nextToken();
+			if(field.equals("animation_length")) length = in.getValueAsDouble();
+			else if(!field.equals("bones")) in.skipChildren();
+			else
+			{
+				expect(in, in.getCurrentToken(), JsonToken.START_OBJECT);
+				while(in.nextToken() == JsonToken.FIELD_NAME)
+				{
+					bones.add(in.getCurrentName());
+					final KeyframeTrack pos = new KeyframeTrack(), rot = new KeyframeTrack();
+					readBone(in, pos, rot);
+					tracks.add(pos);
+					tracks.add(rot);
+				}
+			}
+		}
+		
+		final Animation ani = new Animation(name, length);
+		for(int i = 0; i < bones.size(); ++i)
+			ani.add(bones.get(i), tracks.get(i * 2), tracks.get(i * 2 + 1));
+		return ani;
+	}
+	
+	private static void streamAnimations(
+		JsonParser in,
+		NumberWriter out,
+		Reducer reducer,
+		BinWriter bin
+	) throws IOException {
+		expect(in, in.getCurrentToken(), JsonToken.START_OBJECT);
+		
+		// Key frames of current bone, reused across bones
+		final KeyframeTrack pos = new KeyframeTrack(), rot = new KeyframeTrack();
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final String name = in.getCurrentName();
+			expect(in, in.nextToken(), JsonToken.START_OBJECT);
+			
+			double length = 0D;
+			boolean hasLength = false, headed = false;
+			StringWriter pending = null;
+			while(in.nextToken() == JsonToken.FIELD_NAME)
+			{
+				final String field = in.getCurrentName();
+				in.nextToken();
+				if(field.equals("animation_length"))
+				{
+					length = in.getValueAsDouble();
+					hasLength = true;
+				}
+				else if(!field.equals("bones")) in.skipChildren();
+				else if(hasLength && pending == null)
+				{
+					if(!headed) writeHeader(out, bin, name, length);
+					headed = true;
+					streamBones(in, out, bin, name, pos, rot, reducer);
+				}
+				else
+				{
+					if(pending == null) pending = new StringWriter();
+					final NumberWriter dst = out.fork(pending);
+					streamBones(in, dst, bin, name, pos, rot, reducer);
+					dst.flush();
+				}
+			}
+			
+			if(!headed) writeHeader(out, bin, name, length);
+			if(pending != null) out.print(pending.toString());
+		}
+	}
+	
+	private static void streamBones(
+		JsonParser in,
+		NumberWriter out,
+		BinWriter bin,
+		String animation,
+		KeyframeTrack pos,
+		KeyframeTrack rot,
+		Reducer reducer
+	) throws IOException {
+		expect(in, in.getCurrentToken(), JsonToken.START_OBJECT);
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final String bone = in.getCurrentName();
+			
+			readBone(in, pos.clear(), rot.clear());
+			writeBone(out, bin, animation, bone, pos, rot, reducer);
+		}
+	}
+	
+	/**
+	 * Read position and rotation of the bone whose name is the current token
+	 */
+	private static void readBone(JsonParser in, KeyframeTrack pos, KeyframeTrack rot)
+		throws IOException
+	{
+		// Position and rotation can come in any order
+		expect(in, in.nextToken(), JsonToken.START_OBJECT);
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final String field = in.getCurrentName();
+			in.nextToken();
+			if(field.equals("position")) readAllPointsFrom(in, pos);
+			else if(field.equals("rotation")) readAllPointsFrom(in, rot);
+			else in.skipChildren();
+		}
+	}
+	
+	private static void writeHeader(NumberWriter out, BinWriter bin, String name, double length)
+		throws IOException
+	{
+		out.print("/// ").print(name).print(": ").print(length).print("s ///").newLine();
+		
+		if(bin != null) bin.begin(name, name, BIN_LENGTH, 1).put((float)length).end();
+	}
+	
+	private static void writeBone(
+		NumberWriter out,
+		BinWriter bin,
+		String animation,
+		String name,
+		KeyframeTrack pos,
+		KeyframeTrack rot,
+		Reducer reducer
+	) throws IOException {
+		if(reducer != null) reducer.reduce(name, pos, rot);
+		
+		out.print("// ").print(name).newLine();
+		writePoints(out, ".appendPos(", pos);
+		writePoints(out, ".appendRot(", rot);
+		out.newLine();
+		
+		if(bin != null)
+		{
+			writePoints(bin.begin(animation, name, BIN_POS, BIN_STRIDE), pos).end();
+			writePoints(bin.begin(animation, name, BIN_ROT, BIN_STRIDE), rot).end();
+		}
+	}
+	
+	private static void writePoints(NumberWriter out, String prefix, KeyframeTrack track)
+		throws IOException
+	{
+		if(track.size() == 0)
+		{
+			out.print(prefix).print("0D, 0D, 0D, 0D)").newLine();
 			return;
 		}
 		
-		tell("complete");
+		for(int i = 0; i < track.size(); ++i)
+		{
+			writeDouble(out.print(prefix), track.x(i));
+			writeDouble(out.print(", "), track.y(i));
+			writeDouble(out.print(", "), track.z(i));
+			writeDouble(out.print(", "), track.time(i));
+			out.print(')').newLine();
+		}
+	}
+	
+	private static BinWriter writePoints(BinWriter out, KeyframeTrack track) throws IOException
+	{
+		for(int i = 0; i < track.size(); ++i)
+		{
+			out.put((float)track.x(i)).put((float)track.y(i)).put((float)track.z(i));
+			out.put((float)track.time(i));
+		}
+		return out;
+	}
+	
+	/**
+	 * Read the key frames of current channel into the track and sort them by time. A channel
+	 * without key frames is skipped like in the tree mode.
+	 */
+	private static void readAllPointsFrom(JsonParser in, KeyframeTrack dest) throws IOException
+	{
+		if(in.getCurrentToken() != JsonToken.START_OBJECT)
+		{
+			in.skipChildren();
+			return;
+		}
+		
+		final double[] vec = new double[3];
+		while(in.nextToken() == JsonToken.FIELD_NAME)
+		{
+			final double time = toDouble(in.getCurrentName());
+			
+			// Key frame is either an object with "post" or the vector itself
+			boolean post = in.nextToken() == JsonToken.START_ARRAY;
+			if(post) readVec(in, vec);
+			else
+			{
+				expect(in, in.getCurrentToken(), JsonToken.START_OBJECT);
+				while(in.nextToken() == JsonToken.FIELD_NAME)
+				{
+					final boolean isPost = in.getCurrentName().equals("post");
+					in.nextToken();
+					if(isPost) readVec(in, vec);
+					else in.skipChildren();
+					post |= isPost;
+				}
+			}
+			
+			if(!post) throw new JsonParseException(in, "no post in key frame <" + time + ">");
+			dest.add(time, vec[0], vec[1], vec[2]);
+		}
+		dest.sort();
+	}
+	
+	/**
+	 * Read the first three elements of current array
+	 */
+	private static void readVec(JsonParser in, double[] dst) throws IOException
+	{
+		expect(in, in.getCurrentToken(), JsonToken.START_ARRAY);
+		
+		int count = 0;
+		for(JsonToken token; (token = in.nextToken()) != JsonToken.END_ARRAY; ++count)
+		{
+			if(count >= 3) in.skipChildren();
+			else if(token == JsonToken.VALUE_STRING) dst[count] = toDouble(in.getText());
+			else if(token.isNumeric()) dst[count] = in.getDoubleValue();
+			else throw new JsonParseException(in, "expect a number but got " + token);
+		}
+		if(count < 3) throw new JsonParseException(in, "expect 3 values in vector, got " + count);
+	}
+	
+	private static ObjectMapper newMapper()
+	{
+		final ObjectMapper mapper = new ObjectMapper();
+		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		return mapper;
+	}
+	
+	private static BinWriter openBin(String file) throws IOException
+	{
+		return file != null ? new BinWriter(file, BinWriter.ANIMATION) : null;
+	}
+	
+	private static void expect(JsonParser in, JsonToken token, JsonToken expected)
+		throws JsonParseException
+	{
+		if(token != expected)
+			throw new JsonParseException(in, "expect " + expected + " but got " + token);
 	}
 	
-	private static void readAllPointsFrom(JsonNode node, ArrayList<Entry<String, JsonNode>> dest)
+	private static void readAllPointsFrom(JsonNode node, KeyframeTrack dest)
 	{
 		if(node == null) return;
 		
 		for(Iterator<Entry<String, JsonNode>> itr = node.fields(); itr.hasNext(); )
-			dest.add(itr.next());
-		
-		dest.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+		{
+			final Entry<String, JsonNode> e = itr.next();
+			JsonNode vec = e.getValue();
+			if(!vec.isArray()) vec = vec.get("post");
+			dest.add(
+				toDouble(e.getKey()),
+				toDouble(vec.get(0)),
+				toDouble(vec.get(1)),
+				toDouble(vec.get(2))
+			);
+		}
+		dest.sort();
 	}
 	
-	private static String toVecStr(Entry<String, JsonNode> e)
+	private static double toDouble(JsonNode node)
 	{
-		Iterator<JsonNode> itr = e.getValue().get("post").elements();
-		return itr.next().toString() + "D, " + itr.next().toString()
-			+ "D, " + itr.next().toString() + "D, ";
+		return node.isTextual() ? toDouble(node.asText()) : node.asDouble();
+	}
+	
+	/**
+	 * Blockbench may write values as strings. Values that are not a number, e.g. molang
+	 * expressions, can not be converted and are replaced by {@code 0}.
+	 */
+	private static double toDouble(String text)
+	{
+		try { return Double.parseDouble(text.trim()); }
+		catch(NumberFormatException e)
+		{
+			tell("value <" + text + "> is not a number, replaced by 0");
+			return 0D;
+		}
+	}
+	
+	/**
+	 * Double literal without fraction for small whole numbers, e.g. {@code 12D} or {@code -0.5D}.
+	 * Bits are compared rather than values so that {@code -0.0D} keeps its sign.
+	 */
+	static void writeDouble(NumberWriter out, double d) throws IOException
+	{
+		final boolean whole = Double.doubleToRawLongBits(d) == Double.doubleToRawLongBits((long)d);
+		if(whole && Math.abs(d) < 1E7) out.print((long)d);
+		else out.print(d);
+		out.print('D');
 	}
 	
 	private static void tell(String s) { System.out.print(s + "\n"); }
+	
+	/**
+	 * Reduces the key frames of each bone with {@link KeyframeTrack#reduce(double)} and reports the
+	 * key frame counts and max error of each bone unless it is quiet
+	 */
+	public static final class Reducer
+	{
+		public static final double DEF_POS_TOLERANCE = 0.01D;
+		
+		/**
+		 * In degrees
+		 */
+		public static final double DEF_ROT_TOLERANCE = 0.1D;
+		
+		public final double posTolerance;
+		
+		public final double rotTolerance;
+		
+		/**
+		 * Whether to tell the counts of each bone as it is reduced
+		 */
+		public final boolean verbose;
+		
+		private long before = 0L, after = 0L;
+		
+		public Reducer() { this(DEF_POS_TOLERANCE, DEF_ROT_TOLERANCE); }
+		
+		public Reducer(double posTolerance, double rotTolerance)
+		{
+			this(posTolerance, rotTolerance, true);
+		}
+		
+		public Reducer(double posTolerance, double rotTolerance, boolean verbose)
+		{
+			this.posTolerance = posTolerance;
+			this.rotTolerance = rotTolerance;
+			this.verbose = verbose;
+		}
+		
+		/**
+		 * Parse tolerances given as {@code -reduce=pos[,rot]}. Rotation tolerance is
+		 * {@value #DEF_ROT_TOLERANCE} if it is omitted, as a position tolerance is rarely a
+		 * sensible one in degrees.
+		 */
+		static Reducer parse(String arg)
+		{
+			final String[] split = arg.substring("-reduce=".length()).split(",");
+			final double pos = Double.parseDouble(split[0]);
+			final double rot = split.length > 1 ? Double.parseDouble(split[1]) : DEF_ROT_TOLERANCE;
+			return new Reducer(pos, rot);
+		}
+		
+		public void reduce(String bone, KeyframeTrack pos, KeyframeTrack rot)
+		{
+			final int posCount = pos.size(), rotCount = rot.size();
+			final double posError = pos.reduce(this.posTolerance);
+			final double rotError = rot.reduce(this.rotTolerance);
+			
+			this.before += posCount + rotCount;
+			this.after += pos.size() + rot.size();
+			if(!this.verbose) return;
+			
+			tell(
+				"reduce <" + bone + ">: pos " + posCount + " -> " + pos.size()
+				+ " max error " + posError + ", rot " + rotCount + " -> " + rot.size()
+				+ " max error " + rotError
+			);
+		}
+		
+		/**
+		 * @return Total key frame counts of all bones reduced so far
+		 */
+		public String summary()
+		{
+			return "reduced key frames from " + this.before + " to " + this.after;
+		}
+		
+		/**
+		 * Tell total key frame counts of all bones reduced so far
+		 */
+		public void report() { tell(this.summary()); }
+	}
 }
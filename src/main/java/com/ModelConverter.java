@@ -1,153 +1,520 @@
 package com;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map.Entry;
 
+import com.util.BinWriter;
+import com.util.CoordSystem;
+import com.util.LineScanner;
+import com.util.Mesh;
+import com.util.NumberWriter;
+
 public final class ModelConverter
 {
-	static final String f0 = "0F";
-	static final String[] DEF_ROT = { f0, f0, f0 };
-	
 	static final String DEF_SRC = "D:/Work/Java/FMUM-Develop-Util/run/src.java";
 	
+	/**
+	 * Floats of a box in binary output. Values are in the order of the {@code .addShapeBox(...)}
+	 * parameters: position, offset, rotation, length, u, v and the 24 shape values.
+	 */
+	public static final int BIN_STRIDE = 3 + 3 + 3 + 3 + 2 + 24;
+	
+	/**
+	 * Tags of the blocks in binary mesh output. Vertices are in a block named {@value #MESH} and
+	 * triangles are in a block for each turbo array.
+	 */
+	public static final int
+		MESH_VERTICES = 0,
+		MESH_TRIANGLES = 1;
+	
+	public static final String MESH = "mesh";
+	
+	/**
+	 * Vertex indices of the faces in the order of {@link HitboxConverter} vertices, wound
+	 * counter-clockwise seen from outside of the box
+	 */
+	private static final int[] QUADS = {
+		0, 1, 2, 3,  4, 7, 6, 5,
+		0, 4, 5, 1,  3, 2, 6, 7,
+		0, 3, 7, 4,  1, 5, 6, 2
+	};
+	
+	/**
+	 * Usage:
+	 * {@code [-stream] [-mmap] [-parallel] [-precision=n] [-hitbox=file] [-bin=file]}
+	 * {@code [-mesh=file] [-quantum=q] [src] [dest]}
+	 * 
+	 * <p>With {@code -stream} each box is written out as soon as all of its statements have been
+	 * read rather than buffering the whole model until the end of the source file.</p>
+	 * 
+	 * <p>With {@code -mmap} the source is memory mapped and scanned on its raw bytes.</p>
+	 * 
+	 * <p>With {@code -parallel} the source is memory mapped and parsed in chunks on all cores. It
+	 * does not apply to {@code -stream}.</p>
+	 * 
+	 * <p>With {@code -precision=n} floats are rounded to at most {@code n} significant digits
+	 * rather than the shortest digits that read back as the same float.</p>
+	 * 
+	 * <p>With {@code -hitbox=file} the hitboxes of {@link HitboxConverter} are written to the
+	 * given file from the same parse. It does not apply to {@code -stream}.</p>
+	 * 
+	 * <p>With {@code -bin=file} the boxes are also written to the given file as a binary
+	 * container. It does not apply to {@code -stream}.</p>
+	 * 
+	 * <p>With {@code -mesh=file} the boxes are also expanded into one indexed triangle mesh and
+	 * written to the given file, as Wavefront OBJ if its name ends with {@code .obj} and as a
+	 * binary container otherwise. Vertices closer than {@code -quantum=q} are shared, which is
+	 * {@value Mesh#DEF_QUANTUM} by default. It does not apply to {@code -stream}.</p>
+	 * 
+	 * @see #stream(LineScanner, NumberWriter)
+	 * @see #write(ShapeBoxTable, BinWriter)
+	 * @see #writeMesh(ShapeBoxTable, BinWriter, float)
+	 */
 	public static void Main(String[] args)
 	{
-		String srcFile = args.length < 1 ? DEF_SRC : args[0];
+		boolean stream = false, mmap = false, parallel = false;
+		int precision = 0;
+		float quantum = Mesh.DEF_QUANTUM;
+		String hitboxFile = null, binFile = null, meshFile = null;
+		final ArrayList<String> paths = new ArrayList<>();
+		for(String arg : args)
+			if(arg.equals("-stream")) stream = true;
+			else if(arg.equals("-mmap")) mmap = true;
+			else if(arg.equals("-parallel")) parallel = true;
+			else if(arg.startsWith("-precision="))
+				precision = Integer.parseInt(arg.substring("-precision=".length()));
+			else if(arg.startsWith("-hitbox=")) hitboxFile = arg.substring("-hitbox=".length());
+			else if(arg.startsWith("-bin=")) binFile = arg.substring("-bin=".length());
+			else if(arg.startsWith("-mesh=")) meshFile = arg.substring("-mesh=".length());
+			else if(arg.startsWith("-quantum="))
+				quantum = Float.parseFloat(arg.substring("-quantum=".length()));
+			else paths.add(arg);
+		
+		String srcFile = paths.size() < 1 ? DEF_SRC : paths.get(0);
 		
 		String destFile;
-		if(args.length < 2)
+		if(paths.size() < 2)
 		{
 			int i = srcFile.lastIndexOf('/');
 			if(i < 0) i = srcFile.lastIndexOf('\\');
 			destFile = srcFile.substring(0, i + 1) + "after.java";
 		}
-		else destFile = args[1];
+		else destFile = paths.get(1);
 		
 		tell("target file is <" + srcFile + ">, dest file is <" + destFile + ">");
 		
-		final HashMap<String, String>
-			// Turbo-array-name : array-size
-			models = new HashMap<>(),
+		if(stream)
+		{
+			if(parallel) tell("-parallel does not apply to stream mode, ignored");
+			if(hitboxFile != null) tell("-hitbox does not apply to stream mode, ignored");
+			if(binFile != null) tell("-bin does not apply to stream mode, ignored");
+			if(meshFile != null) tell("-mesh does not apply to stream mode, ignored");
 			
-			// Turbo-array-name + '[' + index : <x, y, z>
-			positions = new HashMap<>(),
+			try(
+				LineScanner in = LineScanner.open(srcFile, mmap);
+				NumberWriter out = new NumberWriter(new FileWriter(destFile), precision);
+			) { stream(in, out); }
+			catch(Exception e)
+			{
+				tell("a error occurred will transfering target file...");
+				e.printStackTrace();
+			}
+			
+			tell("complete");
+			return;
+		}
+		
+		try
+		{
+			final ShapeBoxTable table = ShapeBoxTable.load(srcFile, mmap, parallel);
 			
-			// Turbo-array-name + '[' + index : <x, y, z>
-			offsets = new HashMap<>(),
+			try(NumberWriter out = new NumberWriter(new FileWriter(destFile), precision)) {
+				write(table, out);
+			}
 			
-			// Turbo-array-name + '[' + index : <, x, y, z>
-			lengths = new HashMap<>(),
+			if(hitboxFile != null)
+				try(NumberWriter out = new NumberWriter(new FileWriter(hitboxFile), precision)) {
+					HitboxConverter.write(table, out);
+				}
 			
-			// Turbo-array-name + '[' + index : <, u, v>
-			uvOffsets = new HashMap<>(),
+			if(binFile != null)
+				try(BinWriter out = new BinWriter(binFile, BinWriter.MODEL)) { write(table, out); }
 			
-			// Turbo-array-name + '[' + index : <, x0, y0, z0...x7, y7, z7>
-			shapes = new HashMap<>();
-		
-		// Rotations
-		final HashMap<String, String[]> rots = new HashMap<>();
-		
-		try(
-			BufferedReader in = new BufferedReader(new FileReader(srcFile));
-			BufferedWriter out = new BufferedWriter(new FileWriter(destFile));
-		) {
-			// Each line in target model file
-			for(String s; (s = in.readLine()) != null; )
+			if(meshFile != null)
 			{
-				if(s.length() == 0) continue;
-				
-				// Obtain model turbo name and size
-				if(s.indexOf("Turbo[") > 0)
-					models.put(
-						s.substring(0, s.indexOf(" =")),
-						s.substring(s.indexOf('[') + 1, s.indexOf(']'))
-					);
-				// Texture coordinate offset
-				else if(s.indexOf("Turbo(") > 0)
-					uvOffsets.put(
-						s.substring(0, s.indexOf(']')),
-						s.substring(s.indexOf(','), s.indexOf(", tex"))
+				final Mesh mesh;
+				if(meshFile.toLowerCase().endsWith(".obj"))
+					try(NumberWriter out = new NumberWriter(new FileWriter(meshFile), precision)) {
+						mesh = writeMesh(table, out, quantum);
+					}
+				else try(BinWriter out = new BinWriter(meshFile, BinWriter.MESH)) {
+					mesh = writeMesh(table, out, quantum);
+				}
+				tell(
+					"mesh has " + mesh.vertexCount() + " vertices and "
+					+ mesh.triangleCount() + " triangles"
+				);
+			}
+		}
+		catch(Exception e)
+		{
+			tell("a error occurred will transfering target file...");
+			e.printStackTrace();
+		}
+		
+		tell("complete");
+	}
+	
+	/**
+	 * Job for {@link Batch}. Takes {@code -stream}, {@code -mmap} and {@code -precision=n}.
+	 */
+	public static Batch.Job job(List<String> options)
+	{
+		boolean stream = false, mmap = false;
+		int precision = 0;
+		for(String option : options)
+			if(option.equals("-stream")) stream = true;
+			else if(option.equals("-mmap")) mmap = true;
+			else if(option.startsWith("-precision="))
+				precision = Integer.parseInt(option.substring("-precision=".length()));
+			else throw new IllegalArgumentException("unknown option <" + option + "> for model");
+		
+		final boolean isStream = stream, isMmap = mmap;
+		final int digits = precision;
+		return (Path src, Path dest) -> {
+			try(NumberWriter out = new NumberWriter(new FileWriter(dest.toFile()), digits))
+			{
+				if(!isStream) write(ShapeBoxTable.load(src.toString(), isMmap, false), out);
+				else try(LineScanner in = LineScanner.open(src.toString(), isMmap)) {
+					stream(in, out);
+				}
+			}
+			return null;
+		};
+	}
+	
+	/**
+	 * Write an {@code .addShapeBox(...)} line for each box of the declared turbo arrays
+	 */
+	public static void write(ShapeBoxTable table, NumberWriter out) throws IOException
+	{
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			final float[] values = table.values(id);
+			final int[] attribs = table.attribs(id);
+			for(int i = 0, size = table.size(id); i < size; ++i)
+			{
+				if(table.has(id, i, ShapeBoxTable.HAS_SHAPE))
+					writeBox(
+						out,
+						values, i * ShapeBoxTable.STRIDE,
+						attribs, i * ShapeBoxTable.ATTRIB_STRIDE
 					);
-				// Offset, length and shape
-				else if(s.indexOf("].add") > 0)
+				else tell("box <" + table.name(id) + "[" + i + "]> has no shape box statement, skipped");
+			}
+		}
+	}
+	
+	/**
+	 * Write the boxes of the declared turbo arrays into a block for each array. Block name is the
+	 * array name and each record is a box of {@value #BIN_STRIDE} floats.
+	 */
+	public static void write(ShapeBoxTable table, BinWriter out) throws IOException
+	{
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			final int size = table.size(id);
+			if(size < 0) continue;
+			
+			final float[] values = table.values(id);
+			final int[] attribs = table.attribs(id);
+			out.begin(null, table.name(id), 0, BIN_STRIDE);
+			for(int i = 0; i < size; ++i)
+			{
+				if(!table.has(id, i, ShapeBoxTable.HAS_SHAPE))
 				{
-					final String key = s.substring(0, s.indexOf(']'));
-					
-					int i = s.indexOf(',');
-					i = s.indexOf(',', i + 1);
-					i = s.indexOf(',', i + 1);
-					
-					offsets.put(key, s.substring(s.indexOf('(') + 1, i));
-					
-					int j = s.indexOf(',', i + 1);
-					j = s.indexOf(',', j + 1);
-					j = s.indexOf(',', j + 1);
-					
-					lengths.put(key, s.substring(i, j));
-					
-					i = s.indexOf(',', j + 1);
-					
-					shapes.put(key, s.substring(i, s.indexOf(')')));
+					tell("box <" + table.name(id) + "[" + i + "]> has no shape box statement, skipped");
+					continue;
 				}
-				else if(s.indexOf("].set") > 0)
-					positions.put(
-						s.substring(0, s.indexOf(']')),
-						s.substring(s.indexOf('(') + 1, s.indexOf(')'))
-					);
-				else if(s.indexOf("].rot") > 0)
+				
+				final int off = i * ShapeBoxTable.STRIDE;
+				final int aoff = i * ShapeBoxTable.ATTRIB_STRIDE;
+				out.put(values, off + ShapeBoxTable.POS, 3);
+				out.put(values, off + ShapeBoxTable.OFFSET, 3);
+				out.put(values, off + ShapeBoxTable.ROT, 3);
+				out.put(values, off + ShapeBoxTable.LENGTH, 3);
+				out.put(attribs[aoff + ShapeBoxTable.U]);
+				out.put(attribs[aoff + ShapeBoxTable.V]);
+				out.put(values, off + ShapeBoxTable.SHAPE, 24);
+			}
+			out.end();
+		}
+	}
+	
+	/**
+	 * Expand the boxes of the declared turbo arrays into one mesh and write it as Wavefront OBJ.
+	 * Triangles of each turbo array are in a group named after the array.
+	 * 
+	 * @param quantum Vertices in the same cell of this size are shared
+	 * @return The mesh written
+	 */
+	public static Mesh writeMesh(ShapeBoxTable table, NumberWriter out, float quantum)
+		throws IOException
+	{
+		final Mesh mesh = new Mesh(quantum);
+		final int[] ends = mesh(table, mesh);
+		
+		final float[] vertices = mesh.vertices();
+		for(int i = 0; i < mesh.vertexCount() * 3; i += 3)
+		{
+			out.print('v').print(' ').print(vertices[i]).print(' ');
+			out.print(vertices[i + 1]).print(' ').print(vertices[i + 2]).newLine();
+		}
+		
+		// Indices in OBJ start from 1
+		final int[] triangles = mesh.triangles();
+		for(int id = 0, t = 0; id < table.arrayCount(); ++id)
+		{
+			if(t == ends[id]) continue;
+			
+			out.print('g').print(' ').print(table.name(id)).newLine();
+			for(; t < ends[id]; ++t)
+			{
+				out.print('f').print(' ').print(triangles[t * 3] + 1).print(' ');
+				out.print(triangles[t * 3 + 1] + 1).print(' ').print(triangles[t * 3 + 2] + 1);
+				out.newLine();
+			}
+		}
+		return mesh;
+	}
+	
+	/**
+	 * Expand the boxes of the declared turbo arrays into one mesh and write it into blocks. The
+	 * vertices are a block named {@value #MESH} of packed xyz. Triangles of each turbo array are a
+	 * block named after the array with three vertex indices a record. Indices are stored as
+	 * floats, which is exact as vertex count is limited to {@code 2^24}.
+	 * 
+	 * @param quantum Vertices in the same cell of this size are shared
+	 * @return The mesh written
+	 */
+	public static Mesh writeMesh(ShapeBoxTable table, BinWriter out, float quantum)
+		throws IOException
+	{
+		final Mesh mesh = new Mesh(quantum);
+		final int[] ends = mesh(table, mesh);
+		if(mesh.vertexCount() > 1 << 24)
+			throw new IOException("too many vertices for binary mesh: " + mesh.vertexCount());
+		
+		out.begin(null, MESH, MESH_VERTICES, 3);
+		out.put(mesh.vertices(), 0, mesh.vertexCount() * 3);
+		out.end();
+		
+		final int[] triangles = mesh.triangles();
+		for(int id = 0, t = 0; id < table.arrayCount(); ++id)
+		{
+			if(table.size(id) < 0) continue;
+			
+			out.begin(null, table.name(id), MESH_TRIANGLES, 3);
+			for(; t < ends[id] * 3; ++t) out.put(triangles[t]);
+			out.end();
+		}
+		return mesh;
+	}
+	
+	/**
+	 * Add the eight vertices of each box of the declared turbo arrays and the two triangles of
+	 * each of its faces, in the same coordinates as {@link HitboxConverter}
+	 * 
+	 * @return Triangle count of the mesh after each turbo array
+	 */
+	private static int[] mesh(ShapeBoxTable table, Mesh mesh)
+	{
+		final CoordSystem sys = CoordSystem.get();
+		final int[] ends = new int[table.arrayCount()];
+		final int[] corners = new int[8];
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			final float[] v = HitboxConverter.vertices(table, id, sys, null);
+			for(int off = 0; off < v.length; off += HitboxConverter.BIN_STRIDE)
+			{
+				for(int i = 0; i < 8; ++i)
 				{
-					int i = 2;
-					switch(s.charAt(s.indexOf(" =") - 1))
-					{
-					case 'X': --i;
-					case 'Y': --i;
-					case 'Z': break;
-					default: tell("???");
-					}
-					String key = s.substring(0, s.indexOf(']'));
-					String[] buf = rots.get(key);
-					if(buf == null)
-						buf = new String[] { f0, f0, f0 };
-					buf[i] = s.substring(s.indexOf("= ") + 2, s.length() - 1);
-					rots.put(key, buf);
+					final int p = off + i * 3;
+					corners[i] = mesh.vertex(v[p], v[p + 1], v[p + 2]);
+				}
+				
+				for(int q = 0; q < QUADS.length; q += 4)
+				{
+					final int a = corners[QUADS[q]], b = corners[QUADS[q + 1]];
+					final int c = corners[QUADS[q + 2]], d = corners[QUADS[q + 3]];
+					mesh.triangle(a, b, c);
+					mesh.triangle(a, c, d);
 				}
 			}
+			ends[id] = mesh.triangleCount();
+		}
+		sys.release();
+		return ends;
+	}
+	
+	/**
+	 * <p>Single pass conversion that keeps only the boxes still being read in memory. A box is
+	 * written out once its {@code ].add}, {@code ].set} and {@code Turbo(} statements have all been
+	 * seen and a statement of another box begins, which matches the order ToolBox exports its
+	 * models in. Boxes that never become complete are flushed at the end of the source.</p>
+	 * 
+	 * <p>Boxes are written in the order they are completed rather than grouped by turbo array.
+	 * Statements of a box that has already been written are reported and ignored.</p>
+	 */
+	public static void stream(LineScanner in, NumberWriter out) throws IOException
+	{
+		// Turbo-array-name + '[' + index : box still being read
+		final LinkedHashMap<String, PendingBox> pending = new LinkedHashMap<>();
+		
+		// Turbo-array-name : indices of the boxes already written
+		final HashMap<String, BitSet> flushed = new HashMap<>();
+		
+		String last = null;
+		while(in.nextLine())
+		{
+			final int type = ShapeBoxTable.typeOf(in);
+			if(type == ShapeBoxTable.NONE || type == ShapeBoxTable.ARRAY) continue;
 			
-			for(Entry<String, String> e : models.entrySet())
-				for(
-					int i = 0, size = Integer.parseInt(e.getValue());
-					i < size;
-					++i
-				) {
-					String key = e.getKey() + "[" + i;
-					String pos = positions.get(key);
-					String offset = offsets.get(key);
-					String[] rot = rots.get(key);
-					String length = lengths.get(key);
-					String uv = uvOffsets.get(key);
-					String shape = shapes.get(key);
-					
-					pos = pos == null ? "0F, 0F, 0F" : pos;
-					rot = rot == null ? DEF_ROT : rot;
-					
-					out.write(
-						".addShapeBox(" + pos + ", " + offset + ", " + rot[0] + ", "
-						+ rot[1] + ", " + rot[2] + length + uv + shape + ")"
-					);
-					out.newLine();
+			final String key = in.substring(0, in.indexOf(']')).trim();
+			
+			// Flush previous box if it is complete and we have moved on to another one
+			if(last != null && !last.equals(key))
+			{
+				PendingBox box = pending.get(last);
+				if(box != null && box.isComplete())
+				{
+					pending.remove(last);
+					flush(out, last, box, flushed);
 				}
+			}
+			last = key;
+			
+			final int split = key.lastIndexOf('[');
+			final BitSet done = flushed.get(key.substring(0, split));
+			if(done != null && done.get(Integer.parseInt(key.substring(split + 1))))
+			{
+				tell("ignored statement of already written box <" + key + ">");
+				continue;
+			}
+			
+			PendingBox box = pending.get(key);
+			if(box == null) pending.put(key, box = new PendingBox());
+			ShapeBoxTable.read(in, type, box.values, 0, box.attribs, 0);
 		}
-		catch(Exception e)
+		
+		// Flush stragglers
+		for(Iterator<Entry<String, PendingBox>> i = pending.entrySet().iterator(); i.hasNext(); )
 		{
-			tell("a error occurred will transfering target file...");
-			e.printStackTrace();
+			Entry<String, PendingBox> e = i.next();
+			if((e.getValue().attribs[ShapeBoxTable.FLAGS] & ShapeBoxTable.HAS_SHAPE) == 0)
+				tell("box <" + e.getKey() + "> has no shape box statement, skipped");
+			else flush(out, e.getKey(), e.getValue(), flushed);
+			i.remove();
 		}
+	}
+	
+	private static void flush(
+		NumberWriter out,
+		String key,
+		PendingBox box,
+		HashMap<String, BitSet> flushed
+	) throws IOException {
+		writeBox(out, box.values, 0, box.attribs, 0);
 		
-		tell("complete");
+		final int split = key.lastIndexOf('[');
+		final String name = key.substring(0, split);
+		BitSet done = flushed.get(name);
+		if(done == null) flushed.put(name, done = new BitSet());
+		done.set(Integer.parseInt(key.substring(split + 1)));
+	}
+	
+	/**
+	 * Write a box in the layout of {@link ShapeBoxTable}. Missing position and rotations are zero.
+	 */
+	private static void writeBox(
+		NumberWriter out,
+		float[] values,
+		int off,
+		int[] attribs,
+		int aoff
+	) throws IOException {
+		out.print(".addShapeBox(");
+		writeFloats(out, values, off + ShapeBoxTable.POS, 3);
+		out.print(", ");
+		writeFloats(out, values, off + ShapeBoxTable.OFFSET, 3);
+		out.print(", ");
+		writeFloats(out, values, off + ShapeBoxTable.ROT, 3);
+		for(int i = 0; i < 3; ++i)
+		{
+			// Box length is an int parameter unless it has a fraction
+			final float len = values[off + ShapeBoxTable.LENGTH + i];
+			out.print(", ");
+			if(isInt(len)) out.print((int)len);
+			else writeFloat(out, len);
+		}
+		out.print(", ").print(attribs[aoff + ShapeBoxTable.U]);
+		out.print(", ").print(attribs[aoff + ShapeBoxTable.V]).print(", ");
+		writeFloats(out, values, off + ShapeBoxTable.SHAPE, 24);
+		out.print(')').newLine();
+	}
+	
+	private static void writeFloats(NumberWriter out, float[] values, int off, int count)
+		throws IOException
+	{
+		writeFloat(out, values[off]);
+		for(int i = 1; i < count; ++i)
+			writeFloat(out.print(", "), values[off + i]);
+	}
+	
+	/**
+	 * Float literal in the form ToolBox writes it, e.g. {@code 0F}, {@code -0F} or {@code -1.5F}
+	 */
+	static void writeFloat(NumberWriter out, float f) throws IOException
+	{
+		if(isInt(f)) out.print((int)f);
+		else if(f == 0F) out.print("-0");
+		else out.print(f);
+		out.print('F');
+	}
+	
+	/**
+	 * @return {@code true} if the float can be written as an int. Bits are compared rather than
+	 *     values so that {@code -0F} keeps its sign.
+	 */
+	private static boolean isInt(float f)
+	{
+		return Float.floatToRawIntBits(f) == Float.floatToRawIntBits((int)f);
+	}
+	
+	/**
+	 * Statements of a box read in stream mode, in the layout of {@link ShapeBoxTable}
+	 */
+	private static final class PendingBox
+	{
+		final float[] values = new float[ShapeBoxTable.STRIDE];
+		
+		final int[] attribs = new int[ShapeBoxTable.ATTRIB_STRIDE];
+		
+		boolean isComplete()
+		{
+			final int required = (
+				ShapeBoxTable.HAS_POS | ShapeBoxTable.HAS_SHAPE | ShapeBoxTable.HAS_UV
+			);
+			return (this.attribs[ShapeBoxTable.FLAGS] & required) == required;
+		}
 	}
 	
 	private static void tell(String s) { System.out.print(s + "\n"); }
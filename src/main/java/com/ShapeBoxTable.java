@@ -0,0 +1,362 @@
+package com;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.util.ChunkParser;
+import com.util.LineScanner;
+
+/**
+ * <p>Shape boxes of a ToolBox model parsed into primitive arrays. Each turbo array name is interned
+ * once into an array id, and the boxes of that array are stored row by row in one {@code float[]}
+ * and one {@code int[]}, so a box is addressed by (array id, box index) without building any
+ * string key.</p>
+ * 
+ * <p>Layout of a box in {@link #values(int)} is given by {@link #POS}, {@link #OFFSET},
+ * {@link #LENGTH}, {@link #ROT} and {@link #SHAPE} with {@link #STRIDE} floats per box. Layout in
+ * {@link #attribs(int)} is given by {@link #U}, {@link #V} and {@link #FLAGS} with
+ * {@link #ATTRIB_STRIDE} ints per box. Flags tell which statements have been seen for the box.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class ShapeBoxTable
+{
+	/**
+	 * Parses memory mapped source in parallel chunks
+	 */
+	public static final ChunkParser<ShapeBoxTable> PARSER = new ChunkParser<>(
+		ShapeBoxTable::new,
+		(in, dst) -> dst.parse(in),
+		ShapeBoxTable::merge
+	);
+	
+	public static final int
+		POS = 0,
+		OFFSET = 3,
+		LENGTH = 6,
+		ROT = 9,
+		SHAPE = 12,
+		STRIDE = 36;
+	
+	public static final int
+		U = 0,
+		V = 1,
+		FLAGS = 2,
+		ATTRIB_STRIDE = 3;
+	
+	/**
+	 * Flags of the statements seen for a box
+	 */
+	public static final int
+		HAS_POS = 1,
+		HAS_SHAPE = 2,
+		HAS_UV = 4,
+		HAS_ROT_X = 8,
+		HAS_ROT_Y = 16,
+		HAS_ROT_Z = 32;
+	
+	/**
+	 * Types of the statements in a ToolBox model source
+	 * 
+	 * @see #typeOf(LineScanner)
+	 */
+	public static final int
+		NONE = 0,
+		ARRAY = 1,
+		UV = 2,
+		ADD = 3,
+		SET = 4,
+		ROTATE = 5;
+	
+	private String[] names = new String[8];
+	
+	/**
+	 * Declared size of each array, {@code -1} if the array is only referenced
+	 */
+	private int[] sizes = new int[8];
+	
+	private float[][] values = new float[8][];
+	
+	private int[][] attribs = new int[8][];
+	
+	private int count = 0;
+	
+	/**
+	 * Open addressing table of {@code id + 1} hashed by name. {@code 0} for empty slot.
+	 */
+	private int[] slots = new int[16];
+	
+	/**
+	 * Parse all statements in source into this table
+	 */
+	public static ShapeBoxTable load(String file, boolean mmap, boolean parallel)
+		throws IOException
+	{
+		if(parallel) return PARSER.parse(file);
+		
+		try(LineScanner in = LineScanner.open(file, mmap))
+		{
+			final ShapeBoxTable table = new ShapeBoxTable();
+			table.parse(in);
+			return table;
+		}
+	}
+	
+	/**
+	 * @return Amount of turbo arrays
+	 */
+	public int arrayCount() { return this.count; }
+	
+	public String name(int id) { return this.names[id]; }
+	
+	/**
+	 * @return Declared size of the array or {@code -1} if it has no {@code Turbo[} statement
+	 */
+	public int size(int id) { return this.sizes[id]; }
+	
+	/**
+	 * @return Amount of boxes that can be addressed in the array
+	 */
+	public int capacity(int id) { return this.attribs[id].length / ATTRIB_STRIDE; }
+	
+	/**
+	 * @return Float attributes of all boxes in given array, {@link #STRIDE} for each box
+	 */
+	public float[] values(int id) { return this.values[id]; }
+	
+	/**
+	 * @return Int attributes of all boxes in given array, {@link #ATTRIB_STRIDE} for each box
+	 */
+	public int[] attribs(int id) { return this.attribs[id]; }
+	
+	public boolean has(int id, int index, int flag)
+	{
+		return(
+			index < this.capacity(id)
+			&& (this.attribs[id][index * ATTRIB_STRIDE + FLAGS] & flag) != 0
+		);
+	}
+	
+	/**
+	 * @return Id of the array with given name or {@code -1} if it does not exist
+	 */
+	public int idOf(String name)
+	{
+		final int mask = this.slots.length - 1;
+		for(int i = name.hashCode() & mask, slot; (slot = this.slots[i]) != 0; i = i + 1 & mask)
+			if(this.names[slot - 1].equals(name)) return slot - 1;
+		return -1;
+	}
+	
+	/**
+	 * Parse every line of the given source into this table
+	 */
+	public void parse(LineScanner in) throws IOException
+	{
+		while(in.nextLine())
+		{
+			final int type = typeOf(in);
+			if(type == NONE) continue;
+			
+			int start = 0;
+			while(start < in.length() && Character.isWhitespace(in.charAt(start))) ++start;
+			
+			// Obtain model turbo name and size
+			if(type == ARRAY)
+			{
+				final int id = this.intern(in, start, in.indexOf(" ="));
+				this.sizes[id] = in.seek(in.indexOf('[') + 1).nextInt();
+				this.ensure(id, this.sizes[id] - 1);
+				continue;
+			}
+			
+			final int bracket = in.indexOf('[');
+			final int id = this.intern(in, start, bracket);
+			final int index = in.seek(bracket + 1).nextInt();
+			this.ensure(id, index);
+			read(in, type, this.values[id], index * STRIDE, this.attribs[id], index * ATTRIB_STRIDE);
+		}
+	}
+	
+	/**
+	 * Merge boxes parsed from the following part of the source into this table. Attributes of a
+	 * box are only overwritten if the later table has the statement for them.
+	 */
+	public void merge(ShapeBoxTable later)
+	{
+		for(int src = 0; src < later.count; ++src)
+		{
+			final String name = later.names[src];
+			int id = this.idOf(name);
+			if(id < 0) id = this.add(name);
+			if(later.sizes[src] >= 0) this.sizes[id] = later.sizes[src];
+			
+			final float[] srcValues = later.values[src];
+			final int[] srcAttribs = later.attribs[src];
+			final int capacity = later.capacity(src);
+			for(int i = 0; i < capacity; ++i)
+			{
+				final int flags = srcAttribs[i * ATTRIB_STRIDE + FLAGS];
+				if(flags == 0) continue;
+				
+				this.ensure(id, i);
+				final float[] dstValues = this.values[id];
+				final int[] dstAttribs = this.attribs[id];
+				final int off = i * STRIDE;
+				final int aoff = i * ATTRIB_STRIDE;
+				if((flags & HAS_POS) != 0)
+					System.arraycopy(srcValues, off + POS, dstValues, off + POS, 3);
+				if((flags & HAS_SHAPE) != 0)
+				{
+					System.arraycopy(srcValues, off + OFFSET, dstValues, off + OFFSET, 6);
+					System.arraycopy(srcValues, off + SHAPE, dstValues, off + SHAPE, 24);
+				}
+				if((flags & HAS_UV) != 0)
+				{
+					dstAttribs[aoff + U] = srcAttribs[aoff + U];
+					dstAttribs[aoff + V] = srcAttribs[aoff + V];
+				}
+				for(int axis = 0; axis < 3; ++axis)
+					if((flags & HAS_ROT_X << axis) != 0)
+						dstValues[off + ROT + axis] = srcValues[off + ROT + axis];
+				dstAttribs[aoff + FLAGS] |= flags;
+			}
+		}
+	}
+	
+	/**
+	 * @return Type of the statement in current line of the scanner
+	 */
+	public static int typeOf(LineScanner in)
+	{
+		if(in.length() == 0) return NONE;
+		if(in.indexOf("Turbo[") > 0) return ARRAY;
+		if(in.indexOf("Turbo(") > 0) return UV;
+		if(in.indexOf("].add") > 0) return ADD;
+		if(in.indexOf("].set") > 0) return SET;
+		if(in.indexOf("].rot") > 0) return ROTATE;
+		return NONE;
+	}
+	
+	/**
+	 * Read values of a box statement in current line into the given box row and update its flags
+	 * 
+	 * @param type Type of the statement. Should not be {@link #NONE} or {@link #ARRAY}.
+	 */
+	public static void read(
+		LineScanner in,
+		int type,
+		float[] values,
+		int off,
+		int[] attribs,
+		int aoff
+	) {
+		switch(type)
+		{
+		case UV:
+			in.seek(in.indexOf('(') + 1);
+			attribs[aoff + U] = in.nextInt();
+			attribs[aoff + V] = in.nextInt();
+			attribs[aoff + FLAGS] |= HAS_UV;
+			break;
+		
+		case ADD:
+			in.seek(in.indexOf('(') + 1);
+			in.nextFloats(values, off + OFFSET, 3);
+			in.nextFloats(values, off + LENGTH, 3);
+			in.nextFloat(); // Skip expansion
+			in.nextFloats(values, off + SHAPE, 24);
+			attribs[aoff + FLAGS] |= HAS_SHAPE;
+			break;
+		
+		case SET:
+			in.seek(in.indexOf('(') + 1).nextFloats(values, off + POS, 3);
+			attribs[aoff + FLAGS] |= HAS_POS;
+			break;
+		
+		case ROTATE:
+			final int eq = in.indexOf(" =");
+			final int axis;
+			switch(in.charAt(eq - 1))
+			{
+			case 'X': axis = 0; break;
+			case 'Y': axis = 1; break;
+			case 'Z': axis = 2; break;
+			default: throw new IllegalArgumentException("unknown rotation axis in <" + in + ">");
+			}
+			values[off + ROT + axis] = in.seek(eq + 2).nextFloat();
+			attribs[aoff + FLAGS] |= HAS_ROT_X << axis;
+			break;
+		}
+	}
+	
+	/**
+	 * @return Id of the array whose name is in given range of current line
+	 */
+	private int intern(LineScanner in, int from, int to)
+	{
+		// Same as String#hashCode() so that it can be looked up with a string name
+		int hash = 0;
+		for(int i = from; i < to; ++i) hash = 31 * hash + in.charAt(i);
+		
+		final int mask = this.slots.length - 1;
+		search:
+		for(int i = hash & mask, slot; (slot = this.slots[i]) != 0; i = i + 1 & mask)
+		{
+			final String name = this.names[slot - 1];
+			if(name.length() != to - from) continue;
+			for(int j = name.length(); j-- > 0; )
+				if(name.charAt(j) != in.charAt(from + j)) continue search;
+			return slot - 1;
+		}
+		return this.add(in.substring(from, to));
+	}
+	
+	private int add(String name)
+	{
+		if(this.count == this.names.length)
+		{
+			final int len = this.count * 2;
+			this.names = Arrays.copyOf(this.names, len);
+			this.sizes = Arrays.copyOf(this.sizes, len);
+			this.values = Arrays.copyOf(this.values, len);
+			this.attribs = Arrays.copyOf(this.attribs, len);
+		}
+		
+		final int id = this.count++;
+		this.names[id] = name;
+		this.sizes[id] = -1;
+		this.values[id] = new float[0];
+		this.attribs[id] = new int[0];
+		
+		// Keep load factor under 0.5
+		if(this.count * 2 > this.slots.length)
+		{
+			this.slots = new int[this.slots.length * 2];
+			for(int i = 0; i < this.count; ++i) this.insert(i);
+		}
+		else this.insert(id);
+		return id;
+	}
+	
+	private void insert(int id)
+	{
+		final int mask = this.slots.length - 1;
+		int i = this.names[id].hashCode() & mask;
+		while(this.slots[i] != 0) i = i + 1 & mask;
+		this.slots[i] = id + 1;
+	}
+	
+	/**
+	 * Make sure box with given index can be addressed in array
+	 */
+	private void ensure(int id, int index)
+	{
+		final int capacity = this.capacity(id);
+		if(index < capacity) return;
+		
+		final int len = Math.max(index + 1, Math.max(capacity * 2, 16));
+		this.values[id] = Arrays.copyOf(this.values[id], len * STRIDE);
+		this.attribs[id] = Arrays.copyOf(this.attribs[id], len * ATTRIB_STRIDE);
+	}
+}
@@ -0,0 +1,147 @@
+package com.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Position and rotation tracks of all bones in an animation. Bones are addressed by the index
+ * they are added in.</p>
+ * 
+ * <p>{@link #sample(double, double[], int)} samples every bone at once into one array with
+ * {@link #STRIDE} values for each bone, laid out by {@link #POS} and {@link #ROT}. Use a
+ * {@link Cursor} instead for forward playback.</p>
+ * 
+ * @see KeyframeTrack
+ * @author Giant_Salted_Fish
+ */
+public final class Animation
+{
+	public static final int
+		POS = 0,
+		ROT = 3,
+		STRIDE = 6;
+	
+	public final String name;
+	
+	/**
+	 * Length of the animation in seconds
+	 */
+	public final double length;
+	
+	private String[] bones = new String[8];
+	
+	private KeyframeTrack[] pos = new KeyframeTrack[8];
+	
+	private KeyframeTrack[] rot = new KeyframeTrack[8];
+	
+	private int count = 0;
+	
+	public Animation(String name, double length)
+	{
+		this.name = name;
+		this.length = length;
+	}
+	
+	/**
+	 * Add a bone with its tracks. Tracks should be sorted.
+	 * 
+	 * @return Index of the bone
+	 */
+	public int add(String bone, KeyframeTrack pos, KeyframeTrack rot)
+	{
+		if(this.count == this.bones.length)
+		{
+			final int len = this.count * 2;
+			this.bones = Arrays.copyOf(this.bones, len);
+			this.pos = Arrays.copyOf(this.pos, len);
+			this.rot = Arrays.copyOf(this.rot, len);
+		}
+		
+		final int i = this.count++;
+		this.bones[i] = bone;
+		this.pos[i] = pos;
+		this.rot[i] = rot;
+		return i;
+	}
+	
+	/**
+	 * @return Amount of bones
+	 */
+	public int boneCount() { return this.count; }
+	
+	public String bone(int i) { return this.bones[i]; }
+	
+	public KeyframeTrack position(int i) { return this.pos[i]; }
+	
+	public KeyframeTrack rotation(int i) { return this.rot[i]; }
+	
+	/**
+	 * @return Index of the bone with given name or {@code -1} if it does not exist
+	 */
+	public int indexOf(String bone)
+	{
+		for(int i = 0; i < this.count; ++i)
+			if(this.bones[i].equals(bone)) return i;
+		return -1;
+	}
+	
+	/**
+	 * Sample position and rotation of all bones at given time
+	 * 
+	 * @param dst Destination with room for {@link #STRIDE} values of each bone
+	 * @param off Index to write the first bone to
+	 */
+	public double[] sample(double time, double[] dst, int off)
+	{
+		for(int i = 0, j = off; i < this.count; ++i, j += STRIDE)
+		{
+			this.pos[i].sample(time, dst, j + POS);
+			this.rot[i].sample(time, dst, j + ROT);
+		}
+		return dst;
+	}
+	
+	public Cursor cursor() { return new Cursor(); }
+	
+	@Override
+	public String toString()
+	{
+		return this.name + "(" + this.length + "s, " + this.count + " bones)";
+	}
+	
+	/**
+	 * Samples all bones during forward playback. Each call only steps over the key frames passed
+	 * since the previous call, moving backward falls back to a binary search. Bones added after
+	 * the cursor is created are not sampled by it.
+	 * 
+	 * @see KeyframeTrack.Cursor
+	 */
+	public final class Cursor
+	{
+		/**
+		 * Hints of position and rotation track of each bone
+		 */
+		private final int[] hints = new int[Animation.this.count * 2];
+		
+		private Cursor() { this.reset(); }
+		
+		/**
+		 * @see Animation#sample(double, double[], int)
+		 */
+		public double[] sample(double time, double[] dst, int off)
+		{
+			final Animation ani = Animation.this;
+			final int[] hints = this.hints;
+			for(int i = 0, j = off; i < hints.length / 2; ++i, j += STRIDE)
+			{
+				hints[i * 2] = ani.pos[i].sample(time, hints[i * 2], dst, j + POS);
+				hints[i * 2 + 1] = ani.rot[i].sample(time, hints[i * 2 + 1], dst, j + ROT);
+			}
+			return dst;
+		}
+		
+		/**
+		 * Restart from the beginning of the animation
+		 */
+		public void reset() { Arrays.fill(this.hints, -1); }
+	}
+}
@@ -0,0 +1,140 @@
+package com.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Reads the binary container written by {@link BinWriter}. Opening a container only walks the
+ * block headers and decodes the string table. The floats of a block are handed out as a
+ * {@link FloatBuffer} view into the source, so a memory mapped file is never parsed value by
+ * value.</p>
+ * 
+ * @see BinWriter
+ * @author Giant_Salted_Fish
+ */
+public final class BinReader
+{
+	private final ByteBuffer buf;
+	
+	private final short kind;
+	
+	private final String[] strings;
+	
+	/**
+	 * Position of the header of each block in buffer
+	 */
+	private final int[] blocks;
+	
+	/**
+	 * @param buf Container from its position to its limit. Buffer position is not changed.
+	 */
+	public BinReader(ByteBuffer buf) throws IOException
+	{
+		this.buf = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+		
+		final ByteBuffer b = this.buf;
+		if(b.limit() < BinWriter.HEADER_SIZE || b.getInt(0) != BinWriter.MAGIC)
+			throw new IOException("not a binary container");
+		
+		final short version = b.getShort(4);
+		if(version != BinWriter.VERSION)
+			throw new IOException("unsupported container version <" + version + ">");
+		this.kind = b.getShort(6);
+		
+		// Walk the block headers
+		this.blocks = new int[b.getInt(8)];
+		final int stringOffset = b.getInt(12);
+		for(int i = 0, pos = BinWriter.HEADER_SIZE; i < this.blocks.length; ++i)
+		{
+			if(pos + BinWriter.BLOCK_HEADER_SIZE > stringOffset)
+				throw new IOException("block <" + i + "> out of bounds");
+			
+			this.blocks[i] = pos;
+			final long size = (long)b.getInt(pos + 12) * b.getInt(pos + 16) * Float.BYTES;
+			if(size < 0L || pos + BinWriter.BLOCK_HEADER_SIZE + size > stringOffset)
+				throw new IOException("block <" + i + "> out of bounds");
+			pos += BinWriter.BLOCK_HEADER_SIZE + (int)size;
+		}
+		
+		final ByteBuffer in = b.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		in.position(stringOffset);
+		this.strings = new String[in.getInt()];
+		for(int i = 0; i < this.strings.length; ++i)
+		{
+			final byte[] bytes = new byte[in.getShort() & 0xFFFF];
+			in.get(bytes);
+			this.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+	
+	/**
+	 * Map the whole file into memory and read it as a container
+	 * 
+	 * @param file File to map. Must be smaller than 2GB.
+	 */
+	public static BinReader map(String file) throws IOException
+	{
+		return new BinReader(ByteScanner.mapFile(file));
+	}
+	
+	/**
+	 * @return Kind of content, e.g. {@link BinWriter#MODEL}
+	 */
+	public short kind() { return this.kind; }
+	
+	public int blockCount() { return this.blocks.length; }
+	
+	/**
+	 * @return Group of the block or {@code null} if it has none
+	 */
+	public String group(int block)
+	{
+		final int id = this.buf.getInt(this.blocks[block]);
+		return id < 0 ? null : this.strings[id];
+	}
+	
+	public String name(int block) { return this.strings[this.buf.getInt(this.blocks[block] + 4)]; }
+	
+	public int tag(int block) { return this.buf.getInt(this.blocks[block] + 8); }
+	
+	/**
+	 * @return Amount of floats in each record
+	 */
+	public int stride(int block) { return this.buf.getInt(this.blocks[block] + 12); }
+	
+	/**
+	 * @return Amount of records in the block
+	 */
+	public int count(int block) { return this.buf.getInt(this.blocks[block] + 16); }
+	
+	/**
+	 * @return View of all floats in the block, starting at index {@code 0}
+	 */
+	public FloatBuffer floats(int block)
+	{
+		final int start = this.blocks[block] + BinWriter.BLOCK_HEADER_SIZE;
+		final ByteBuffer b = this.buf.duplicate();
+		b.position(start).limit(start + this.stride(block) * this.count(block) * Float.BYTES);
+		return b.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+	}
+	
+	/**
+	 * @return Index of the first block with given group, name and tag, or {@code -1} if there is
+	 *     none
+	 */
+	public int indexOf(String group, String name, int tag)
+	{
+		for(int i = 0; i < this.blocks.length; ++i)
+		{
+			final String g = this.group(i);
+			if(
+				this.tag(i) == tag && this.name(i).equals(name)
+				&& (group == null ? g == null : group.equals(g))
+			) return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,230 @@
+package com.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>Writes the versioned binary container read by {@link BinReader}. All values are little
+ * endian. The file is laid out as</p>
+ * 
+ * <pre>
+ * header  int magic, short version, short kind, int block count, int string table offset
+ * block   int group, int name, int tag, int stride, int count, float[stride * count]
+ * ...
+ * strings int count, then each string as short length and UTF-8 bytes
+ * </pre>
+ * 
+ * <p>A block holds {@code count} records of {@code stride} floats. Group and name are indices
+ * into the string table, group is {@code -1} if the block has none. What kind, group, name and tag
+ * mean is up to the tool writing the file. Blocks are written out as soon as they are put and
+ * their record count is patched in by {@link #end()}, so the writer only buffers a small
+ * chunk of the file.</p>
+ * 
+ * @see BinReader
+ * @author Giant_Salted_Fish
+ */
+public final class BinWriter implements Closeable
+{
+	/**
+	 * "FMUB" in little endian
+	 */
+	public static final int MAGIC = 0x42554D46;
+	
+	public static final short VERSION = 1;
+	
+	/**
+	 * Kinds of content of the container
+	 */
+	public static final short
+		MODEL = 1,
+		HITBOX = 2,
+		ANIMATION = 3,
+		MESH = 4;
+	
+	static final int HEADER_SIZE = 16;
+	
+	static final int BLOCK_HEADER_SIZE = 20;
+	
+	private final FileChannel channel;
+	
+	private final ByteBuffer buf = ByteBuffer.allocate(1 << 17).order(ByteOrder.LITTLE_ENDIAN);
+	
+	/**
+	 * Bytes written to the channel so far
+	 */
+	private long written = 0L;
+	
+	private final HashMap<String, Integer> stringIds = new HashMap<>();
+	private final ArrayList<String> strings = new ArrayList<>();
+	
+	private int blockCount = 0;
+	
+	/**
+	 * Position of the header of current block in file, {@code -1} if no block is open
+	 */
+	private long blockStart = -1L;
+	
+	private int stride;
+	
+	private long floats;
+	
+	/**
+	 * Create or truncate the file and write the header
+	 */
+	public BinWriter(String file, short kind) throws IOException
+	{
+		this.channel = FileChannel.open(
+			Paths.get(file),
+			StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING,
+			StandardOpenOption.WRITE
+		);
+		
+		// Block count and string table offset are patched in on close
+		this.buf.putInt(MAGIC).putShort(VERSION).putShort(kind).putInt(0).putInt(0);
+	}
+	
+	/**
+	 * Start a new block. Floats put after this belong to it until {@link #end()}.
+	 * 
+	 * @param group Name of the group of the block, can be {@code null}
+	 * @param stride Amount of floats in each record
+	 */
+	public BinWriter begin(String group, String name, int tag, int stride) throws IOException
+	{
+		if(this.blockStart >= 0L) throw new IllegalStateException("previous block is not ended");
+		if(stride <= 0) throw new IllegalArgumentException("invalid stride <" + stride + ">");
+		
+		this.ensure(BLOCK_HEADER_SIZE);
+		this.blockStart = this.written + this.buf.position();
+		this.stride = stride;
+		this.floats = 0L;
+		this.buf.putInt(group != null ? this.intern(group) : -1).putInt(this.intern(name));
+		this.buf.putInt(tag).putInt(stride).putInt(0);
+		return this;
+	}
+	
+	public BinWriter put(float f) throws IOException
+	{
+		this.ensure(Float.BYTES);
+		this.buf.putFloat(f);
+		++this.floats;
+		return this;
+	}
+	
+	public BinWriter put(float[] src, int off, int len) throws IOException
+	{
+		for(int end = off + len; off < end; )
+		{
+			this.ensure(Float.BYTES);
+			final int n = Math.min(end - off, this.buf.remaining() / Float.BYTES);
+			this.buf.asFloatBuffer().put(src, off, n);
+			this.buf.position(this.buf.position() + n * Float.BYTES);
+			off += n;
+		}
+		this.floats += len;
+		return this;
+	}
+	
+	/**
+	 * End current block and write its record count
+	 */
+	public BinWriter end() throws IOException
+	{
+		if(this.blockStart < 0L) throw new IllegalStateException("no block to end");
+		if(this.floats % this.stride != 0)
+			throw new IllegalStateException(
+				"put " + this.floats + " floats into block of stride " + this.stride
+			);
+		
+		final long count = this.floats / this.stride;
+		if(count > Integer.MAX_VALUE) throw new IOException("too many records in block");
+		
+		this.patch(this.blockStart + BLOCK_HEADER_SIZE - Integer.BYTES, (int)count);
+		this.blockStart = -1L;
+		++this.blockCount;
+		return this;
+	}
+	
+	/**
+	 * Write the string table and finish the header
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if(this.blockStart >= 0L) throw new IllegalStateException("last block is not ended");
+			
+			final long offset = this.written + this.buf.position();
+			if(offset > Integer.MAX_VALUE) throw new IOException("file larger than 2GB");
+			
+			this.ensure(Integer.BYTES);
+			this.buf.putInt(this.strings.size());
+			for(String s : this.strings)
+			{
+				final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				if(bytes.length > 0xFFFF) throw new IOException("string too long <" + s + ">");
+				
+				this.ensure(Short.BYTES + bytes.length);
+				this.buf.putShort((short)bytes.length).put(bytes);
+			}
+			
+			this.patch(8L, this.blockCount);
+			this.patch(12L, (int)offset);
+			this.flush();
+		}
+		finally { this.channel.close(); }
+	}
+	
+	private int intern(String s)
+	{
+		Integer id = this.stringIds.get(s);
+		if(id == null)
+		{
+			id = this.strings.size();
+			this.stringIds.put(s, id);
+			this.strings.add(s);
+		}
+		return id;
+	}
+	
+	/**
+	 * Write an int at given position of the file, in the buffer if it is not flushed yet
+	 */
+	private void patch(long position, int value) throws IOException
+	{
+		if(position >= this.written)
+		{
+			this.buf.putInt((int)(position - this.written), value);
+			return;
+		}
+		
+		final ByteBuffer tmp = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		tmp.putInt(0, value);
+		while(tmp.hasRemaining()) this.channel.write(tmp, position + tmp.position());
+	}
+	
+	/**
+	 * Make sure the buffer has room for given amount of bytes
+	 */
+	private void ensure(int bytes) throws IOException
+	{
+		if(this.buf.remaining() < bytes) this.flush();
+	}
+	
+	private void flush() throws IOException
+	{
+		this.buf.flip();
+		while(this.buf.hasRemaining()) this.written += this.channel.write(this.buf);
+		this.buf.clear();
+	}
+}
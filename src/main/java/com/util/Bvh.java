@@ -0,0 +1,410 @@
+package com.util;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Bounding volume hierarchy over axis aligned boxes, split by the surface area heuristic on
+ * binned box centers. The tree lives in three flat arrays so that it can be traversed without
+ * allocation and written out as it is:</p>
+ * 
+ * <pre>
+ * bounds  min x, min y, min z, max x, max y, max z of each node
+ * nodes   first, count of each node
+ * order   box ids in the order the leaves refer to them
+ * </pre>
+ * 
+ * <p>Node {@code 0} is the root. A leaf has {@code count > 0} and holds the boxes
+ * {@code order[first]} to {@code order[first + count - 1]}. An inner node has {@code count == 0},
+ * its children are nodes {@code first} and {@code first + 1}. A tree over no boxes has no node.
+ * </p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class Bvh
+{
+	/**
+	 * Floats of a node in {@link #bounds()} and ints of a node in {@link #nodes()}
+	 */
+	public static final int
+		BOUNDS_STRIDE = 6,
+		NODE_STRIDE = 2;
+	
+	/**
+	 * Floats of a node in binary output: its bounds, first and count
+	 */
+	public static final int BIN_STRIDE = BOUNDS_STRIDE + NODE_STRIDE;
+	
+	/**
+	 * Nodes with no more boxes than this are not split
+	 */
+	public static final int MAX_LEAF_SIZE = 4;
+	
+	private static final int BINS = 16;
+	
+	private final float[] bounds;
+	
+	private final int[] nodes;
+	
+	private final int[] order;
+	
+	private final int nodeCount;
+	
+	private final int depth;
+	
+	private Bvh(float[] bounds, int[] nodes, int[] order, int nodeCount, int depth)
+	{
+		this.bounds = bounds;
+		this.nodes = nodes;
+		this.order = order;
+		this.nodeCount = nodeCount;
+		this.depth = depth;
+	}
+	
+	/**
+	 * Build a tree over given boxes. Box {@code i} is referred to by id {@code i}.
+	 * 
+	 * @param boxes Min xyz and max xyz of each box, {@value #BOUNDS_STRIDE} floats per box
+	 */
+	public static Bvh build(float[] boxes, int off, int count)
+	{
+		final int[] order = new int[count];
+		if(count == 0) return new Bvh(new float[0], new int[0], order, 0, 0);
+		
+		final float[] centers = new float[count * 3];
+		for(int i = 0; i < count; ++i)
+		{
+			order[i] = i;
+			final int b = off + i * BOUNDS_STRIDE;
+			centers[i * 3 + 0] = (boxes[b + 0] + boxes[b + 3]) * 0.5F;
+			centers[i * 3 + 1] = (boxes[b + 1] + boxes[b + 4]) * 0.5F;
+			centers[i * 3 + 2] = (boxes[b + 2] + boxes[b + 5]) * 0.5F;
+		}
+		
+		final int maxNodes = 2 * count - 1;
+		final float[] bounds = new float[maxNodes * BOUNDS_STRIDE];
+		final int[] nodes = new int[maxNodes * NODE_STRIDE];
+		
+		// Node, first box, end box and depth of the nodes still to build
+		final int[] stack = new int[maxNodes * 4];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = 0;
+		stack[top++] = count;
+		stack[top++] = 1;
+		
+		final float[] binBounds = new float[BINS * BOUNDS_STRIDE];
+		final int[] binCounts = new int[BINS];
+		final float[] rightAreas = new float[BINS];
+		final float[] centerBounds = new float[BOUNDS_STRIDE];
+		final float[] sweep = new float[BOUNDS_STRIDE];
+		int nodeCount = 1, depth = 0;
+		while(top > 0)
+		{
+			final int d = stack[--top];
+			final int end = stack[--top];
+			final int start = stack[--top];
+			final int node = stack[--top];
+			depth = Math.max(depth, d);
+			
+			// Bounds of the node and of the centers of its boxes
+			empty(bounds, node * BOUNDS_STRIDE);
+			empty(centerBounds, 0);
+			for(int i = start; i < end; ++i)
+			{
+				final int id = order[i];
+				grow(bounds, node * BOUNDS_STRIDE, boxes, off + id * BOUNDS_STRIDE);
+				growPoint(centerBounds, 0, centers, id * 3);
+			}
+			
+			final int n = end - start;
+			if(n <= MAX_LEAF_SIZE)
+			{
+				nodes[node * NODE_STRIDE] = start;
+				nodes[node * NODE_STRIDE + 1] = n;
+				continue;
+			}
+			
+			// Split along the axis the centers spread the most
+			int axis = 0;
+			for(int a = 1; a < 3; ++a)
+				if(extent(centerBounds, a) > extent(centerBounds, axis)) axis = a;
+			
+			// Halve the boxes if all centers are at the same point
+			int mid = start + n / 2;
+			final float min = centerBounds[axis], ext = extent(centerBounds, axis);
+			if(ext > 0F)
+			{
+				final float scale = BINS / ext;
+				for(int b = 0; b < BINS; ++b) empty(binBounds, b * BOUNDS_STRIDE);
+				Arrays.fill(binCounts, 0);
+				for(int i = start; i < end; ++i)
+				{
+					final int id = order[i];
+					final int b = bin(centers[id * 3 + axis], min, scale);
+					++binCounts[b];
+					grow(binBounds, b * BOUNDS_STRIDE, boxes, off + id * BOUNDS_STRIDE);
+				}
+				
+				// Sweep from the right for the area right of each plane, then from the left
+				empty(sweep, 0);
+				for(int b = BINS - 1; b > 0; --b)
+				{
+					grow(sweep, 0, binBounds, b * BOUNDS_STRIDE);
+					rightAreas[b] = area(sweep, 0);
+				}
+				
+				empty(sweep, 0);
+				int split = 1, leftCount = 0, rightCount = n, bestLeft = 0;
+				float best = Float.POSITIVE_INFINITY;
+				for(int b = 1; b < BINS; ++b)
+				{
+					grow(sweep, 0, binBounds, (b - 1) * BOUNDS_STRIDE);
+					leftCount += binCounts[b - 1];
+					rightCount -= binCounts[b - 1];
+					if(leftCount == 0 || rightCount == 0) continue;
+					
+					final float cost = area(sweep, 0) * leftCount + rightAreas[b] * rightCount;
+					if(cost < best)
+					{
+						best = cost;
+						split = b;
+						bestLeft = leftCount;
+					}
+				}
+				
+				// Partition boxes left of the plane to the front
+				for(int i = start, j = end - 1; i <= j; )
+				{
+					final int id = order[i];
+					if(bin(centers[id * 3 + axis], min, scale) < split) ++i;
+					else
+					{
+						order[i] = order[j];
+						order[j--] = id;
+					}
+				}
+				mid = start + bestLeft;
+			}
+			
+			final int left = nodeCount;
+			nodeCount += 2;
+			nodes[node * NODE_STRIDE] = left;
+			nodes[node * NODE_STRIDE + 1] = 0;
+			
+			stack[top++] = left + 1;
+			stack[top++] = mid;
+			stack[top++] = end;
+			stack[top++] = d + 1;
+			stack[top++] = left;
+			stack[top++] = start;
+			stack[top++] = mid;
+			stack[top++] = d + 1;
+		}
+		return new Bvh(
+			Arrays.copyOf(bounds, nodeCount * BOUNDS_STRIDE),
+			Arrays.copyOf(nodes, nodeCount * NODE_STRIDE),
+			order, nodeCount, depth
+		);
+	}
+	
+	/**
+	 * Compute the axis aligned bounds of given vertices
+	 * 
+	 * @param vertices Packed xyz of the vertices
+	 * @param dst Destination of min xyz and max xyz
+	 */
+	public static void bounds(float[] vertices, int off, int count, float[] dst, int doff)
+	{
+		empty(dst, doff);
+		for(int i = 0; i < count; ++i) growPoint(dst, doff, vertices, off + i * 3);
+	}
+	
+	/**
+	 * @return Bounds of the nodes, {@value #BOUNDS_STRIDE} floats per node
+	 */
+	public float[] bounds() { return this.bounds; }
+	
+	/**
+	 * @return First and count of the nodes, {@value #NODE_STRIDE} ints per node
+	 */
+	public int[] nodes() { return this.nodes; }
+	
+	/**
+	 * @return Box ids in the order leaves refer to them
+	 */
+	public int[] order() { return this.order; }
+	
+	public int nodeCount() { return this.nodeCount; }
+	
+	public int boxCount() { return this.order.length; }
+	
+	/**
+	 * @return Levels of the deepest leaf, which is enough for the stack of a depth first traversal
+	 */
+	public int depth() { return this.depth; }
+	
+	/**
+	 * Find the boxes whose node bounds overlap given bounds
+	 * 
+	 * @param box Min xyz and max xyz to test
+	 * @param stack Scratch of at least {@link #depth()} ints
+	 * @param dst Destination of the ids of leaf boxes that may overlap
+	 * @return Amount of ids written, stops once {@code dst} is full
+	 */
+	public int overlaps(float[] box, int off, int[] stack, int[] dst)
+	{
+		if(this.nodeCount == 0) return 0;
+		
+		int found = 0, top = 0;
+		stack[top++] = 0;
+		while(top > 0)
+		{
+			final int node = stack[--top];
+			if(!overlap(this.bounds, node * BOUNDS_STRIDE, box, off)) continue;
+			
+			final int first = this.nodes[node * NODE_STRIDE];
+			final int count = this.nodes[node * NODE_STRIDE + 1];
+			if(count == 0)
+			{
+				stack[top++] = first + 1;
+				stack[top++] = first;
+				continue;
+			}
+			
+			for(int i = first; i < first + count; ++i)
+			{
+				if(found == dst.length) return found;
+				dst[found++] = this.order[i];
+			}
+		}
+		return found;
+	}
+	
+	/**
+	 * Write the nodes into a block of {@value #BIN_STRIDE} floats per node and the box order into
+	 * a block of one float per box. Ids and counts are written as float values, which is exact up
+	 * to {@code 2^24}.
+	 */
+	public void write(BinWriter out, String group, String name, int nodeTag, int orderTag)
+		throws IOException
+	{
+		out.begin(group, name, nodeTag, BIN_STRIDE);
+		for(int node = 0; node < this.nodeCount; ++node)
+		{
+			out.put(this.bounds, node * BOUNDS_STRIDE, BOUNDS_STRIDE);
+			out.put(this.nodes[node * NODE_STRIDE]).put(this.nodes[node * NODE_STRIDE + 1]);
+		}
+		out.end();
+		
+		out.begin(group, name, orderTag, 1);
+		for(int id : this.order) out.put(id);
+		out.end();
+	}
+	
+	/**
+	 * Read a tree written by {@link #write(BinWriter, String, String, int, int)}
+	 */
+	public static Bvh read(BinReader in, int nodeBlock, int orderBlock) throws IOException
+	{
+		if(in.stride(nodeBlock) != BIN_STRIDE || in.stride(orderBlock) != 1)
+			throw new IOException("not a bounding volume hierarchy");
+		
+		final int nodeCount = in.count(nodeBlock);
+		final float[] bounds = new float[nodeCount * BOUNDS_STRIDE];
+		final int[] nodes = new int[nodeCount * NODE_STRIDE];
+		final FloatBuffer buf = in.floats(nodeBlock);
+		for(int node = 0; node < nodeCount; ++node)
+		{
+			buf.get(bounds, node * BOUNDS_STRIDE, BOUNDS_STRIDE);
+			nodes[node * NODE_STRIDE] = (int)buf.get();
+			nodes[node * NODE_STRIDE + 1] = (int)buf.get();
+		}
+		
+		final int[] order = new int[in.count(orderBlock)];
+		final FloatBuffer ids = in.floats(orderBlock);
+		for(int i = 0; i < order.length; ++i) order[i] = (int)ids.get(i);
+		
+		// Depth is not stored, walk down to find it
+		int depth = 0;
+		if(nodeCount > 0)
+		{
+			final int[] stack = new int[nodeCount * 2];
+			int top = 0;
+			stack[top++] = 0;
+			stack[top++] = 1;
+			while(top > 0)
+			{
+				final int d = stack[--top];
+				final int node = stack[--top];
+				depth = Math.max(depth, d);
+				
+				final int first = nodes[node * NODE_STRIDE];
+				if(nodes[node * NODE_STRIDE + 1] > 0) continue;
+				if(first + 1 >= nodeCount || first <= node)
+					throw new IOException("invalid child of node <" + node + ">");
+				
+				stack[top++] = first;
+				stack[top++] = d + 1;
+				stack[top++] = first + 1;
+				stack[top++] = d + 1;
+			}
+		}
+		return new Bvh(bounds, nodes, order, nodeCount, depth);
+	}
+	
+	private static int bin(float center, float min, float scale)
+	{
+		return Math.min((int)((center - min) * scale), BINS - 1);
+	}
+	
+	private static void empty(float[] b, int off)
+	{
+		b[off + 0] = b[off + 1] = b[off + 2] = Float.POSITIVE_INFINITY;
+		b[off + 3] = b[off + 4] = b[off + 5] = Float.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Grow bounds to contain given bounds
+	 */
+	private static void grow(float[] dst, int doff, float[] src, int soff)
+	{
+		for(int a = 0; a < 3; ++a)
+		{
+			dst[doff + a] = Math.min(dst[doff + a], src[soff + a]);
+			dst[doff + 3 + a] = Math.max(dst[doff + 3 + a], src[soff + 3 + a]);
+		}
+	}
+	
+	/**
+	 * Grow bounds to contain given point
+	 */
+	private static void growPoint(float[] dst, int doff, float[] src, int soff)
+	{
+		for(int a = 0; a < 3; ++a)
+		{
+			dst[doff + a] = Math.min(dst[doff + a], src[soff + a]);
+			dst[doff + 3 + a] = Math.max(dst[doff + 3 + a], src[soff + a]);
+		}
+	}
+	
+	private static float extent(float[] b, int axis) { return b[axis + 3] - b[axis]; }
+	
+	private static float area(float[] b, int off)
+	{
+		final float x = b[off + 3] - b[off];
+		final float y = b[off + 4] - b[off + 1];
+		final float z = b[off + 5] - b[off + 2];
+		return x * y + y * z + z * x;
+	}
+	
+	private static boolean overlap(float[] a, int aoff, float[] b, int boff)
+	{
+		return(
+			a[aoff + 0] <= b[boff + 3] && a[aoff + 3] >= b[boff + 0]
+			&& a[aoff + 1] <= b[boff + 4] && a[aoff + 4] >= b[boff + 1]
+			&& a[aoff + 2] <= b[boff + 5] && a[aoff + 5] >= b[boff + 2]
+		);
+	}
+}
@@ -0,0 +1,108 @@
+package com.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>A {@link LineScanner} working directly on the bytes of a {@link ByteBuffer}, usually a file
+ * mapped with {@link #map(String)}. Lines are windows into the buffer rather than copies and
+ * characters are never decoded, so scanning runs at close to memory bandwidth.</p>
+ * 
+ * <p>Input is treated as ASCII. Bytes outside of it are only safe in places that are never turned
+ * into strings(comments for example).</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class ByteScanner extends LineScanner
+{
+	private final ByteBuffer buf;
+	
+	private final int limit;
+	
+	/**
+	 * Start of current line in buffer
+	 */
+	private int start = 0;
+	
+	/**
+	 * Start of next line in buffer
+	 */
+	private int next;
+	
+	private char[] chars = new char[64];
+	
+	/**
+	 * @param buf Source bytes from its position to its limit. Buffer position is not changed.
+	 */
+	public ByteScanner(ByteBuffer buf)
+	{
+		this.buf = buf;
+		this.next = buf.position();
+		this.limit = buf.limit();
+	}
+	
+	/**
+	 * Map the whole file into memory for read and scan it
+	 * 
+	 * @param file File to map. Must be smaller than 2GB.
+	 */
+	public static ByteScanner map(String file) throws IOException
+	{
+		return new ByteScanner(mapFile(file));
+	}
+	
+	/**
+	 * Map the whole file into memory for read
+	 * 
+	 * @param file File to map. Must be smaller than 2GB.
+	 */
+	public static MappedByteBuffer mapFile(String file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ))
+		{
+			final long size = channel.size();
+			if(size > Integer.MAX_VALUE)
+				throw new IOException("can not map file larger than 2GB <" + file + ">");
+			return channel.map(MapMode.READ_ONLY, 0L, size);
+		}
+	}
+	
+	@Override
+	public boolean nextLine()
+	{
+		if(this.next >= this.limit) return false;
+		
+		final ByteBuffer buf = this.buf;
+		int i = this.start = this.next;
+		for(byte b; i < this.limit && (b = buf.get(i)) != '\n' && b != '\r'; ++i);
+		
+		this.len = i - this.start;
+		this.pos = 0;
+		
+		// Skip line terminator, "\r\n" counts as one
+		if(i < this.limit && buf.get(i++) == '\r' && i < this.limit && buf.get(i) == '\n') ++i;
+		this.next = i;
+		return true;
+	}
+	
+	@Override
+	public String substring(int from, int to)
+	{
+		final int n = to - from;
+		if(this.chars.length < n) this.chars = new char[Math.max(n, this.chars.length * 2)];
+		for(int i = 0; i < n; ++i)
+			this.chars[i] = (char)(this.buf.get(this.start + from + i) & 0xFF);
+		return new String(this.chars, 0, n);
+	}
+	
+	@Override
+	public void close() { }
+	
+	@Override
+	protected int at(int i) { return this.buf.get(this.start + i) & 0xFF; }
+}
@@ -0,0 +1,70 @@
+package com.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link LineScanner} that reads lines from a {@link Reader} into a reused {@code char} buffer.
+ * Unlike {@link java.io.BufferedReader#readLine()}, no {@link String} is created for each line.
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class CharScanner extends LineScanner
+{
+	private final Reader in;
+	
+	private final char[] buf = new char[8192];
+	
+	private int bufPos = 0, bufLen = 0;
+	
+	private char[] line = new char[256];
+	
+	public CharScanner(Reader in) { this.in = in; }
+	
+	@Override
+	public boolean nextLine() throws IOException
+	{
+		this.len = this.pos = 0;
+		
+		boolean read = false;
+		while(true)
+		{
+			if(this.bufPos == this.bufLen && !this.fill()) return read;
+			read = true;
+			
+			final char c = this.buf[this.bufPos++];
+			if(c == '\n') return true;
+			if(c == '\r')
+			{
+				// Swallow the '\n' of "\r\n"
+				if((this.bufPos < this.bufLen || this.fill()) && this.buf[this.bufPos] == '\n')
+					++this.bufPos;
+				return true;
+			}
+			
+			if(this.len == this.line.length)
+			{
+				final char[] line = new char[this.len * 2];
+				System.arraycopy(this.line, 0, line, 0, this.len);
+				this.line = line;
+			}
+			this.line[this.len++] = c;
+		}
+	}
+	
+	@Override
+	public String substring(int from, int to) { return new String(this.line, from, to - from); }
+	
+	@Override
+	public void close() throws IOException { this.in.close(); }
+	
+	@Override
+	protected int at(int i) { return this.line[i]; }
+	
+	private boolean fill() throws IOException
+	{
+		this.bufPos = 0;
+		this.bufLen = Math.max(0, this.in.read(this.buf, 0, this.buf.length));
+		return this.bufLen > 0;
+	}
+}
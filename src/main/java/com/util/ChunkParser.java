@@ -0,0 +1,132 @@
+package com.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>Parses a line based source in parallel. The source is split into chunks at line boundaries,
+ * each chunk is parsed into its own partial result on a {@link ForkJoinPool} and the partial
+ * results are then merged pairwise in file order.</p>
+ * 
+ * <p>This only works if every line can be parsed on its own, and the merge must resolve keys
+ * written by more than one chunk the same way a sequential parse would, usually by letting the
+ * later chunk win.</p>
+ * 
+ * @param <T> Class of the (partial) parse result
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class ChunkParser<T>
+{
+	/**
+	 * Source is not split into chunks smaller than this
+	 */
+	public static final int MIN_CHUNK = 1 << 20;
+	
+	/**
+	 * Amount of chunks for each worker thread, which gives some room for load balancing
+	 */
+	private static final int CHUNKS_PER_WORKER = 4;
+	
+	private final ObjFactory<T> factory;
+	private final Parser<T> parser;
+	private final Merger<T> merger;
+	
+	/**
+	 * @param factory Provides an empty result for each chunk
+	 * @param parser Parses all lines of a chunk into the given result
+	 * @param merger Merges result of a later chunk into result of an earlier chunk
+	 */
+	public ChunkParser(ObjFactory<T> factory, Parser<T> parser, Merger<T> merger)
+	{
+		this.factory = factory;
+		this.parser = parser;
+		this.merger = merger;
+	}
+	
+	/**
+	 * Memory map the given file and parse it with {@link ForkJoinPool#commonPool()}
+	 */
+	public T parse(String file) throws IOException
+	{
+		return this.parse(ByteScanner.mapFile(file), ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param buf Source bytes from its position to its limit
+	 * @param pool Pool to run the parse on
+	 */
+	public T parse(ByteBuffer buf, ForkJoinPool pool) throws IOException
+	{
+		final int start = buf.position();
+		final int limit = buf.limit();
+		final int count = Math.max(
+			1,
+			Math.min(pool.getParallelism() * CHUNKS_PER_WORKER, (limit - start) / MIN_CHUNK)
+		);
+		
+		// Move each split point to the start of the next line
+		final int[] bounds = new int[count + 1];
+		bounds[0] = start;
+		bounds[count] = limit;
+		for(int i = 1; i < count; ++i)
+		{
+			int b = Math.max(bounds[i - 1], start + (int)((long)(limit - start) * i / count));
+			while(b < limit && buf.get(b++) != '\n');
+			bounds[i] = b;
+		}
+		
+		try { return pool.invoke(new Task(buf, bounds, 0, count)); }
+		catch(UncheckedIOException e) { throw e.getCause(); }
+	}
+	
+	@FunctionalInterface
+	public static interface Parser<T> { public void parse(LineScanner in, T dst) throws IOException; }
+	
+	@FunctionalInterface
+	public static interface Merger<T> { public void merge(T dst, T later); }
+	
+	private final class Task extends RecursiveTask<T>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final ByteBuffer buf;
+		private final int[] bounds;
+		private final int lo, hi;
+		
+		Task(ByteBuffer buf, int[] bounds, int lo, int hi)
+		{
+			this.buf = buf;
+			this.bounds = bounds;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		
+		@Override
+		protected T compute()
+		{
+			if(this.hi - this.lo == 1)
+			{
+				final ByteBuffer chunk = this.buf.duplicate();
+				chunk.limit(this.bounds[this.hi]);
+				chunk.position(this.bounds[this.lo]);
+				
+				final T result = ChunkParser.this.factory.produce();
+				try { ChunkParser.this.parser.parse(new ByteScanner(chunk), result); }
+				catch(IOException e) { throw new UncheckedIOException(e); }
+				return result;
+			}
+			
+			final int mid = (this.lo + this.hi) >>> 1;
+			final Task left = new Task(this.buf, this.bounds, this.lo, mid);
+			left.fork();
+			final T right = new Task(this.buf, this.bounds, mid, this.hi).compute();
+			final T result = left.join();
+			ChunkParser.this.merger.merge(result, right);
+			return result;
+		}
+	}
+}
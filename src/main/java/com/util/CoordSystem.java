@@ -1,5 +1,8 @@
 package com.util;
 
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
 /**
  * A kind of hacky version of matrix4 with all transformations changed to circular functions. Can be
  * used to track coordinates in 3D space(usually used to track the position transformed by OpenGL
@@ -154,8 +157,9 @@ public final class CoordSystem implements Releasable
 	}
 	
 	/**
-	 * Rotate current coordinate system with given xzy value. It will call {@link #rot(double, byte)}
-	 * in x, z, y order.
+	 * Rotate current coordinate system with given xzy value. It has the same effect as calling
+	 * {@link #rot(double, byte)} in x, z, y order, but the rotations are composed into one matrix
+	 * first.
 	 * 
 	 * @note Sequence can effect the final result. Correct order should be a reverse of the OpenGL.
 	 * @see #rot(double, byte)
@@ -166,9 +170,7 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem rot(double x, double y, double z)
 	{
-		this.rot(x, X);
-		this.rot(z, Z);
-		this.rot(y, Y);
+		this.rot(x, y, z, MAT_SUBR);
 		return this;
 	}
 	
@@ -178,9 +180,7 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem rot(Vec3 vec)
 	{
-		this.rot(vec.x, X);
-		this.rot(vec.z, Z);
-		this.rot(vec.y, Y);
+		this.rot(vec.x, vec.y, vec.z, MAT_SUBR);
 		return this;
 	}
 	
@@ -203,9 +203,7 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem rot(double amount, byte along)
 	{
-		this.rot(amount, along, SUBR_X);
-		this.rot(amount, along, SUBR_Y);
-		this.rot(amount, along, SUBR_Z);
+		this.rot(amount, along, MAT_SUBR);
 		return this;
 	}
 	
@@ -229,8 +227,9 @@ public final class CoordSystem implements Releasable
 	}
 
 	/**
-	 * Rotate normal vectors of current coordinate system with given xzy value. It will call
-	 * {@link #globalRot(double, byte)} in x, z, y order.
+	 * Rotate normal vectors of current coordinate system with given xzy value. It has the same
+	 * effect as calling {@link #globalRot(double, byte)} in x, z, y order, but the rotations are
+	 * composed into one matrix first.
 	 * 
 	 * @note Sequence can effect the final result. Correct order should be a reverse of the OpenGL.
 	 * @see #globalRot(double, byte)
@@ -241,9 +240,7 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem globalRot(double x, double y, double z)
 	{
-		this.globalRot(x, X);
-		this.globalRot(z, Z);
-		this.globalRot(y, Y);
+		this.rot(x, y, z, MAT_NORM);
 		return this;
 	}
 	
@@ -253,9 +250,7 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem globalRot(Vec3 vec)
 	{
-		this.globalRot(vec.x, X);
-		this.globalRot(vec.z, Z);
-		this.globalRot(vec.y, Y);
+		this.rot(vec.x, vec.y, vec.z, MAT_NORM);
 		return this;
 	}
 	
@@ -276,12 +271,90 @@ public final class CoordSystem implements Releasable
 	 */
 	public CoordSystem globalRot(double amount, byte along)
 	{
-		this.rot(amount, along, NORM_X);
-		this.rot(amount, along, NORM_Y);
-		this.rot(amount, along, NORM_Z);
+		this.rot(amount, along, MAT_NORM);
+		return this;
+	}
+	
+	/**
+	 * Rotate current coordinate system with given quaternion. Like
+	 * {@link #rot(double, double, double)} it rotates the sub-coordinate system, which takes effect
+	 * on {@link #submitRot()}.
+	 * 
+	 * @param q Unit quaternion of the rotation
+	 */
+	public CoordSystem rot(Quat q)
+	{
+		this.rot(q, MAT_SUBR);
+		return this;
+	}
+	
+	/**
+	 * Rotate normal vectors of current coordinate system with given quaternion
+	 * 
+	 * @see #globalRot(double, double, double)
+	 * @param q Unit quaternion of the rotation
+	 */
+	public CoordSystem globalRot(Quat q)
+	{
+		this.rot(q, MAT_NORM);
+		return this;
+	}
+	
+	/**
+	 * Load the rotation of given quaternion as the three vectors of given matrix. Scale of the
+	 * matrix is lost.
+	 * 
+	 * @param q Unit quaternion of the rotation
+	 * @param base Matrix to set. One of {@link #MAT_NORM} or {@link #MAT_SUBR}.
+	 */
+	public CoordSystem setRot(Quat q, byte base)
+	{
+		this.loadIdentity(base);
+		this.rot(q, base);
 		return this;
 	}
 	
+	/**
+	 * Get the rotation of given matrix as a quaternion. Scale of the three vectors is divided out.
+	 * 
+	 * @param dst Destination quaternion
+	 * @param base Matrix to read. One of {@link #MAT_NORM} or {@link #MAT_SUBR}.
+	 */
+	public Quat getRot(Quat dst, byte base)
+	{
+		final double[] v = this.vec;
+		final int bx = base, by = base + NORM_Y - NORM_X, bz = base + NORM_Z - NORM_X;
+		final double sx = length(v, bx), sy = length(v, by), sz = length(v, bz);
+		final double
+			m00 = v[bx + X] / sx, m01 = v[by + X] / sy, m02 = v[bz + X] / sz,
+			m10 = v[bx + Y] / sx, m11 = v[by + Y] / sy, m12 = v[bz + Y] / sz,
+			m20 = v[bx + Z] / sx, m21 = v[by + Z] / sy, m22 = v[bz + Z] / sz;
+		
+		// Take the root of the largest diagonal term to keep it away from zero
+		final double trace = m00 + m11 + m22;
+		if(trace > 0D)
+		{
+			final double s = Math.sqrt(trace + 1D) * 2D;
+			dst.set(s / 4D, (m21 - m12) / s, (m02 - m20) / s, (m10 - m01) / s);
+		}
+		else if(m00 > m11 && m00 > m22)
+		{
+			final double s = Math.sqrt(1D + m00 - m11 - m22) * 2D;
+			dst.set((m21 - m12) / s, s / 4D, (m01 + m10) / s, (m02 + m20) / s);
+		}
+		else if(m11 > m22)
+		{
+			final double s = Math.sqrt(1D + m11 - m00 - m22) * 2D;
+			dst.set((m02 - m20) / s, (m01 + m10) / s, s / 4D, (m12 + m21) / s);
+		}
+		else
+		{
+			final double s = Math.sqrt(1D + m22 - m00 - m11) * 2D;
+			dst.set((m10 - m01) / s, (m02 + m20) / s, (m12 + m21) / s, s / 4D);
+		}
+		return dst.normalize();
+	}
+	
 	/**
 	 * Scale current coordinate system for given amount
 	 * 
@@ -372,6 +445,173 @@ public final class CoordSystem implements Releasable
 		return dst;
 	}
 	
+	/**
+	 * <p>Apply rotation, translation and scale of this coordinate system for a batch of vertices
+	 * stored as packed xyz triples. Computation is done in {@code double} like
+	 * {@link #apply(Vec3f, Vec3f)}, so results are identical to transforming each vertex with it.</p>
+	 * 
+	 * <p>Source and destination can be the same array with the same offset.</p>
+	 * 
+	 * @param src Raw vertices
+	 * @param srcOff Index of the first component to read in source
+	 * @param dst Destination of the result
+	 * @param dstOff Index of the first component to write in destination
+	 * @param count Amount of vertices to transfer
+	 */
+	public float[] apply(float[] src, int srcOff, float[] dst, int dstOff, int count)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X], m03 = v[OFFSET + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y], m13 = v[OFFSET + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z], m23 = v[OFFSET + Z];
+		
+		for(int i = srcOff, j = dstOff, end = srcOff + count * 3; i < end; i += 3, j += 3)
+		{
+			final float x = src[i], y = src[i + 1], z = src[i + 2];
+			dst[j] = (float)(x * m00 + y * m01 + z * m02 + m03);
+			dst[j + 1] = (float)(x * m10 + y * m11 + z * m12 + m13);
+			dst[j + 2] = (float)(x * m20 + y * m21 + z * m22 + m23);
+		}
+		return dst;
+	}
+	
+	/**
+	 * @see #apply(float[], int, float[], int, int)
+	 */
+	public double[] apply(double[] src, int srcOff, double[] dst, int dstOff, int count)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X], m03 = v[OFFSET + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y], m13 = v[OFFSET + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z], m23 = v[OFFSET + Z];
+		
+		for(int i = srcOff, j = dstOff, end = srcOff + count * 3; i < end; i += 3, j += 3)
+		{
+			final double x = src[i], y = src[i + 1], z = src[i + 2];
+			dst[j] = x * m00 + y * m01 + z * m02 + m03;
+			dst[j + 1] = x * m10 + y * m11 + z * m12 + m13;
+			dst[j + 2] = x * m20 + y * m21 + z * m22 + m23;
+		}
+		return dst;
+	}
+	
+	/**
+	 * Buffer version of {@link #apply(float[], int, float[], int, int)}. Uses absolute indices so
+	 * position of the buffers is not changed.
+	 */
+	public FloatBuffer apply(FloatBuffer src, int srcOff, FloatBuffer dst, int dstOff, int count)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X], m03 = v[OFFSET + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y], m13 = v[OFFSET + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z], m23 = v[OFFSET + Z];
+		
+		for(int i = srcOff, j = dstOff, end = srcOff + count * 3; i < end; i += 3, j += 3)
+		{
+			final float x = src.get(i), y = src.get(i + 1), z = src.get(i + 2);
+			dst.put(j, (float)(x * m00 + y * m01 + z * m02 + m03));
+			dst.put(j + 1, (float)(x * m10 + y * m11 + z * m12 + m13));
+			dst.put(j + 2, (float)(x * m20 + y * m21 + z * m22 + m23));
+		}
+		return dst;
+	}
+	
+	/**
+	 * @see #apply(FloatBuffer, int, FloatBuffer, int, int)
+	 */
+	public DoubleBuffer apply(DoubleBuffer src, int srcOff, DoubleBuffer dst, int dstOff, int count)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X], m03 = v[OFFSET + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y], m13 = v[OFFSET + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z], m23 = v[OFFSET + Z];
+		
+		for(int i = srcOff, j = dstOff, end = srcOff + count * 3; i < end; i += 3, j += 3)
+		{
+			final double x = src.get(i), y = src.get(i + 1), z = src.get(i + 2);
+			dst.put(j, x * m00 + y * m01 + z * m02 + m03);
+			dst.put(j + 1, x * m10 + y * m11 + z * m12 + m13);
+			dst.put(j + 2, x * m20 + y * m21 + z * m22 + m23);
+		}
+		return dst;
+	}
+	
+	/**
+	 * Apply rotation, translation and scale of this coordinate system for the vectors in given
+	 * range of the buffer, in place
+	 * 
+	 * @param from Index of the first vector
+	 * @param to Index after the last vector
+	 */
+	public Vec3fBuffer apply(Vec3fBuffer buf, int from, int to)
+	{
+		final FloatBuffer b = buf.buffer();
+		this.apply(b, from * 3, b, from * 3, to - from);
+		return buf;
+	}
+	
+	/**
+	 * @see #apply(Vec3fBuffer, int, int)
+	 */
+	public Vec3Buffer apply(Vec3Buffer buf, int from, int to)
+	{
+		final DoubleBuffer b = buf.buffer();
+		this.apply(b, from * 3, b, from * 3, to - from);
+		return buf;
+	}
+	
+	/**
+	 * Apply rotation and scale of this coordinate system for the vectors in given range of the
+	 * buffer, in place. Use it for directions like normals that should not be translated.
+	 * 
+	 * @param from Index of the first vector
+	 * @param to Index after the last vector
+	 */
+	public Vec3fBuffer applyRot(Vec3fBuffer buf, int from, int to)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z];
+		
+		final FloatBuffer b = buf.buffer();
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final float x = b.get(j), y = b.get(j + 1), z = b.get(j + 2);
+			b.put(j, (float)(x * m00 + y * m01 + z * m02));
+			b.put(j + 1, (float)(x * m10 + y * m11 + z * m12));
+			b.put(j + 2, (float)(x * m20 + y * m21 + z * m22));
+		}
+		return buf;
+	}
+	
+	/**
+	 * @see #applyRot(Vec3fBuffer, int, int)
+	 */
+	public Vec3Buffer applyRot(Vec3Buffer buf, int from, int to)
+	{
+		final double[] v = this.vec;
+		final double
+			m00 = v[NORM_X + X], m01 = v[NORM_Y + X], m02 = v[NORM_Z + X],
+			m10 = v[NORM_X + Y], m11 = v[NORM_Y + Y], m12 = v[NORM_Z + Y],
+			m20 = v[NORM_X + Z], m21 = v[NORM_Y + Z], m22 = v[NORM_Z + Z];
+		
+		final DoubleBuffer b = buf.buffer();
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final double x = b.get(j), y = b.get(j + 1), z = b.get(j + 2);
+			b.put(j, x * m00 + y * m01 + z * m02);
+			b.put(j + 1, x * m10 + y * m11 + z * m12);
+			b.put(j + 2, x * m20 + y * m21 + z * m22);
+		}
+		return buf;
+	}
+	
 	/**
 	 * Apply rotation and scale of this coordinate system for the given raw vector
 	 * 
@@ -578,35 +818,167 @@ public final class CoordSystem implements Releasable
 	@Override
 	public void release() { pool.back(this); }
 	
+	/**
+	 * Rotate the three vectors of given matrix on required axis
+	 * 
+	 * @param base Matrix to rotate. One of {@link #MAT_NORM} or {@link #MAT_SUBR}.
+	 */
 	private void rot(double amount, byte along, byte base)
 	{
+		if(amount == 0D) return;
+		
 		// Get sin and cos
-		double sin = Math.toRadians(amount);
-		double cos = Math.cos(sin);
-		sin = Math.sin(sin);
+		final double sin = sin(amount);
+		final double cos = cos(amount);
 		
 		// Setup transform based on axis
-		switch(along)
+		final double[] v = this.vec;
+		for(int b = base, end = base + 9; b < end; b += 3)
+		{
+			final double x = v[b + X], y = v[b + Y], z = v[b + Z];
+			switch(along)
+			{
+			case X:
+				v[b + Y] = y * cos - z * sin;
+				v[b + Z] = y * sin + z * cos;
+				break;
+			case Y:
+				v[b + X] = z * sin + x * cos;
+				v[b + Z] = z * cos - x * sin;
+				break;
+			case Z:
+				v[b + X] = x * cos - y * sin;
+				v[b + Y] = x * sin + y * cos;
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Compose the rotations on x, z, y into one matrix and multiply it into the three vectors of
+	 * given matrix. Axes with zero angle are skipped.
+	 * 
+	 * @param base Matrix to rotate. One of {@link #MAT_NORM} or {@link #MAT_SUBR}.
+	 */
+	private void rot(double x, double y, double z, byte base)
+	{
+		// Rotation matrix of Ry * Rz * Rx, starts with Rx
+		double
+			m00 = 1D, m01 = 0D, m02 = 0D,
+			m10 = 0D, m11 = 1D, m12 = 0D,
+			m20 = 0D, m21 = 0D, m22 = 1D;
+		
+		int axes = 0;
+		if(x != 0D)
 		{
-		case X:
-			amount = this.vec[base + Y] * cos - this.vec[base + Z] * sin;
-			this.vec[base + Z]
-				= this.vec[base + Y] * sin + this.vec[base + Z] * cos;
-			this.vec[base + Y] = amount;
-			break;
-		case Y:
-			amount = this.vec[base + Z] * sin + this.vec[base + X] * cos;
-			this.vec[base + Z]
-				= this.vec[base + Z] * cos - this.vec[base + X] * sin;
-			this.vec[base + X] = amount;
-			break;
-		case Z:
-			amount = this.vec[base + X] * cos - this.vec[base + Y] * sin;
-			this.vec[base + Y]
-				= this.vec[base + X] * sin + this.vec[base + Y] * cos;
-			this.vec[base + X] = amount;
-			break;
+			final double sin = sin(x), cos = cos(x);
+			m11 = cos; m12 = -sin;
+			m21 = sin; m22 = cos;
+			++axes;
 		}
+		
+		if(z != 0D)
+		{
+			// Rows 0 and 1 of Rz * M
+			final double sin = sin(z), cos = cos(z);
+			double r0, r1;
+			r0 = m00 * cos - m10 * sin; r1 = m00 * sin + m10 * cos; m00 = r0; m10 = r1;
+			r0 = m01 * cos - m11 * sin; r1 = m01 * sin + m11 * cos; m01 = r0; m11 = r1;
+			r0 = m02 * cos - m12 * sin; r1 = m02 * sin + m12 * cos; m02 = r0; m12 = r1;
+			++axes;
+		}
+		
+		if(y != 0D)
+		{
+			// Rows 0 and 2 of Ry * M
+			final double sin = sin(y), cos = cos(y);
+			double r0, r2;
+			r0 = m20 * sin + m00 * cos; r2 = m20 * cos - m00 * sin; m00 = r0; m20 = r2;
+			r0 = m21 * sin + m01 * cos; r2 = m21 * cos - m01 * sin; m01 = r0; m21 = r2;
+			r0 = m22 * sin + m02 * cos; r2 = m22 * cos - m02 * sin; m02 = r0; m22 = r2;
+			++axes;
+		}
+		
+		if(axes == 0) return;
+		
+		final double[] v = this.vec;
+		for(int b = base, end = base + 9; b < end; b += 3)
+		{
+			final double vx = v[b + X], vy = v[b + Y], vz = v[b + Z];
+			v[b + X] = m00 * vx + m01 * vy + m02 * vz;
+			v[b + Y] = m10 * vx + m11 * vy + m12 * vz;
+			v[b + Z] = m20 * vx + m21 * vy + m22 * vz;
+		}
+	}
+	
+	/**
+	 * Multiply the rotation matrix of given quaternion into the three vectors of given matrix
+	 * 
+	 * @param base Matrix to rotate. One of {@link #MAT_NORM} or {@link #MAT_SUBR}.
+	 */
+	private void rot(Quat q, byte base)
+	{
+		final double
+			xx = q.x * q.x, yy = q.y * q.y, zz = q.z * q.z,
+			xy = q.x * q.y, xz = q.x * q.z, yz = q.y * q.z,
+			wx = q.w * q.x, wy = q.w * q.y, wz = q.w * q.z;
+		final double
+			m00 = 1D - 2D * (yy + zz), m01 = 2D * (xy - wz), m02 = 2D * (xz + wy),
+			m10 = 2D * (xy + wz), m11 = 1D - 2D * (xx + zz), m12 = 2D * (yz - wx),
+			m20 = 2D * (xz - wy), m21 = 2D * (yz + wx), m22 = 1D - 2D * (xx + yy);
+		
+		final double[] v = this.vec;
+		for(int b = base, end = base + 9; b < end; b += 3)
+		{
+			final double vx = v[b + X], vy = v[b + Y], vz = v[b + Z];
+			v[b + X] = m00 * vx + m01 * vy + m02 * vz;
+			v[b + Y] = m10 * vx + m11 * vy + m12 * vz;
+			v[b + Z] = m20 * vx + m21 * vy + m22 * vz;
+		}
+	}
+	
+	private static double length(double[] v, int b)
+	{
+		return Math.sqrt(v[b + X] * v[b + X] + v[b + Y] * v[b + Y] + v[b + Z] * v[b + Z]);
+	}
+	
+	/**
+	 * @return Sine of given degrees. Exact for multiples of 90 degrees.
+	 */
+	static double sin(double degrees)
+	{
+		switch(quadrant(degrees))
+		{
+		case 0: case 2: return 0D;
+		case 1: return 1D;
+		case 3: return -1D;
+		default: return Math.sin(Math.toRadians(degrees));
+		}
+	}
+	
+	/**
+	 * @return Cosine of given degrees. Exact for multiples of 90 degrees.
+	 */
+	static double cos(double degrees)
+	{
+		switch(quadrant(degrees))
+		{
+		case 1: case 3: return 0D;
+		case 0: return 1D;
+		case 2: return -1D;
+		default: return Math.cos(Math.toRadians(degrees));
+		}
+	}
+	
+	/**
+	 * @return Amount of quarter turns in {@code 0-3} if degrees is a multiple of 90, otherwise
+	 *     {@code -1}
+	 */
+	private static int quadrant(double degrees)
+	{
+		final double quarters = degrees / 90D;
+		if(quarters != Math.rint(quarters) || Math.abs(quarters) > 1E15) return -1;
+		return (int)((long)quarters & 3L);
 	}
 	
 	private void submitRot(byte base)
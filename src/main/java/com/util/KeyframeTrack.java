@@ -0,0 +1,344 @@
+package com.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Key frames of one animation channel, e.g. the position of a bone. Times are kept in one
+ * {@code double[]} and the xyz values of the key frames are packed in another one, so a track of
+ * any length is only two arrays.</p>
+ * 
+ * <p>Key frames can be added in any order. Call {@link #sort()} to order them by time before
+ * reading. Key frames with the same time keep the order they are added in.</p>
+ * 
+ * <p>Values between key frames are linearly interpolated. Before the first key frame and after the
+ * last one the value of that key frame is held. Random access is a binary search, and a
+ * {@link Cursor} advances in amortized constant time when the time only moves forward.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class KeyframeTrack
+{
+	/**
+	 * Ranges up to this size are sorted with insertion sort
+	 */
+	private static final int RUN = 16;
+	
+	private double[] times;
+	
+	/**
+	 * Packed xyz of each key frame
+	 */
+	private double[] values;
+	
+	private int size = 0;
+	
+	public KeyframeTrack() { this(8); }
+	
+	public KeyframeTrack(int capacity)
+	{
+		this.times = new double[capacity];
+		this.values = new double[capacity * 3];
+	}
+	
+	public KeyframeTrack add(double time, double x, double y, double z)
+	{
+		if(this.size == this.times.length)
+		{
+			final int len = Math.max(8, this.size * 2);
+			this.times = Arrays.copyOf(this.times, len);
+			this.values = Arrays.copyOf(this.values, len * 3);
+		}
+		
+		final int i = this.size++;
+		this.times[i] = time;
+		this.values[i * 3] = x;
+		this.values[i * 3 + 1] = y;
+		this.values[i * 3 + 2] = z;
+		return this;
+	}
+	
+	/**
+	 * @return Amount of key frames
+	 */
+	public int size() { return this.size; }
+	
+	public double time(int i) { return this.times[i]; }
+	
+	public double x(int i) { return this.values[i * 3]; }
+	
+	public double y(int i) { return this.values[i * 3 + 1]; }
+	
+	public double z(int i) { return this.values[i * 3 + 2]; }
+	
+	public Vec3 get(int i, Vec3 dst)
+	{
+		final int j = i * 3;
+		return dst.set(this.values[j], this.values[j + 1], this.values[j + 2]);
+	}
+	
+	/**
+	 * @return Times of the key frames. Only the first {@link #size()} entries are valid.
+	 */
+	public double[] times() { return this.times; }
+	
+	/**
+	 * @return Packed xyz of the key frames. Only the first {@link #size()} triples are valid.
+	 */
+	public double[] values() { return this.values; }
+	
+	/**
+	 * @return Index of the last key frame at or before given time, {@code -1} if there is none
+	 */
+	public int floor(double time)
+	{
+		int lo = 0, hi = this.size - 1;
+		while(lo <= hi)
+		{
+			final int mid = lo + hi >>> 1;
+			if(this.times[mid] <= time) lo = mid + 1;
+			else hi = mid - 1;
+		}
+		return hi;
+	}
+	
+	public Vec3 sample(double time, Vec3 dst)
+	{
+		final int i = this.floor(time);
+		return dst.set(this.lerp(i, time, 0), this.lerp(i, time, 1), this.lerp(i, time, 2));
+	}
+	
+	/**
+	 * Write interpolated xyz at given time to the destination
+	 */
+	public double[] sample(double time, double[] dst, int off)
+	{
+		this.lerp(this.floor(time), time, dst, off);
+		return dst;
+	}
+	
+	/**
+	 * Sample with a hint from the previous call. If time has moved forward since then, the index is
+	 * found by stepping from the hint, otherwise by binary search.
+	 * 
+	 * @param hint Value returned by the previous call, or {@code -1} for the first call
+	 * @return Hint for the next call
+	 */
+	public int sample(double time, int hint, double[] dst, int off)
+	{
+		int i = Math.min(hint, this.size - 1);
+		if(i >= 0 && this.times[i] > time) i = this.floor(time);
+		else while(i + 1 < this.size && this.times[i + 1] <= time) ++i;
+		
+		this.lerp(i, time, dst, off);
+		return i;
+	}
+	
+	public Cursor cursor() { return new Cursor(); }
+	
+	/**
+	 * Remove all key frames but keep the arrays for reuse
+	 */
+	public KeyframeTrack clear()
+	{
+		this.size = 0;
+		return this;
+	}
+	
+	/**
+	 * Stable sort of the key frames by numeric time. Does nothing if they are already in order,
+	 * which is the usual case.
+	 */
+	public KeyframeTrack sort()
+	{
+		final int size = this.size;
+		int i = 1;
+		while(i < size && Double.compare(this.times[i - 1], this.times[i]) <= 0) ++i;
+		if(i >= size) return this;
+		
+		for(int lo = 0; lo < size; lo += RUN)
+			insertionSort(this.times, this.values, lo, Math.min(lo + RUN, size));
+		
+		// Bottom up merge of the runs, swapping between the arrays and the scratch arrays
+		double[] times = this.times, values = this.values;
+		double[] tmpTimes = new double[times.length], tmpValues = new double[values.length];
+		for(int width = RUN; width < size; width *= 2)
+		{
+			for(int lo = 0; lo < size; lo += width * 2)
+			{
+				final int mid = Math.min(lo + width, size);
+				final int hi = Math.min(lo + width * 2, size);
+				merge(times, values, tmpTimes, tmpValues, lo, mid, hi);
+			}
+			
+			double[] swap = times;
+			times = tmpTimes;
+			tmpTimes = swap;
+			swap = values;
+			values = tmpValues;
+			tmpValues = swap;
+		}
+		this.times = times;
+		this.values = values;
+		return this;
+	}
+	
+	/**
+	 * <p>Remove key frames whose value can be reproduced by interpolating the kept key frames
+	 * around them, within given tolerance on each axis. The first and the last key frame are always
+	 * kept, and so are key frames sharing the same time, as they form a step.</p>
+	 * 
+	 * <p>Key frames are scanned forward from the last kept one, dropping as many as possible before
+	 * keeping the next one. Track should be sorted.</p>
+	 * 
+	 * @param tolerance Max difference on any axis between a removed key frame and the reduced track
+	 *     at its time. Nothing is removed if it is negative.
+	 * @return Max difference of all removed key frames
+	 */
+	public double reduce(double tolerance)
+	{
+		final int size = this.size;
+		if(size < 3) return 0D;
+		
+		double maxError = 0D, error = 0D;
+		int anchor = 0, kept = 1;
+		for(int end = 2; end < size; ++end)
+		{
+			final double e = this.deviation(anchor, end);
+			if(e <= tolerance)
+			{
+				error = e;
+				continue;
+			}
+			
+			// Can not reach this one, keep the one before it
+			maxError = Math.max(maxError, error);
+			error = 0D;
+			anchor = end - 1;
+			this.move(anchor, kept++);
+		}
+		this.move(size - 1, kept++);
+		this.size = kept;
+		return Math.max(maxError, error);
+	}
+	
+	/**
+	 * @return Max difference of key frames between {@code from} and {@code to} from the line
+	 *     between the two, or infinity if any of them shares time with either end
+	 */
+	private double deviation(int from, int to)
+	{
+		final double[] times = this.times, values = this.values;
+		final double t0 = times[from], t1 = times[to];
+		if(!(times[from + 1] > t0 && t1 > times[to - 1])) return Double.POSITIVE_INFINITY;
+		
+		double max = 0D;
+		final int a = from * 3, b = to * 3;
+		for(int i = from + 1; i < to; ++i)
+		{
+			final double f = (times[i] - t0) / (t1 - t0);
+			for(int axis = 0; axis < 3; ++axis)
+			{
+				final double v0 = values[a + axis], v1 = values[b + axis];
+				max = Math.max(max, Math.abs(v0 + (v1 - v0) * f - values[i * 3 + axis]));
+			}
+		}
+		return max;
+	}
+	
+	private void move(int from, int to)
+	{
+		if(from == to) return;
+		
+		this.times[to] = this.times[from];
+		System.arraycopy(this.values, from * 3, this.values, to * 3, 3);
+	}
+	
+	private void lerp(int i, double time, double[] dst, int off)
+	{
+		dst[off] = this.lerp(i, time, 0);
+		dst[off + 1] = this.lerp(i, time, 1);
+		dst[off + 2] = this.lerp(i, time, 2);
+	}
+	
+	/**
+	 * Interpolate given component between key frame {@code i} and the next one
+	 */
+	private double lerp(int i, double time, int axis)
+	{
+		if(this.size == 0) return 0D;
+		
+		// Hold the value out of range
+		final int last = this.size - 1;
+		if(i < 0) return this.values[axis];
+		if(i >= last) return this.values[last * 3 + axis];
+		
+		final double t0 = this.times[i], t1 = this.times[i + 1];
+		final double v0 = this.values[i * 3 + axis], v1 = this.values[i * 3 + 3 + axis];
+		return t1 > t0 ? v0 + (v1 - v0) * ((time - t0) / (t1 - t0)) : v1;
+	}
+	
+	private static void insertionSort(double[] times, double[] values, int from, int to)
+	{
+		for(int i = from + 1; i < to; ++i)
+		{
+			final double t = times[i];
+			final double x = values[i * 3], y = values[i * 3 + 1], z = values[i * 3 + 2];
+			
+			int j = i;
+			for(; j > from && Double.compare(times[j - 1], t) > 0; --j)
+			{
+				times[j] = times[j - 1];
+				System.arraycopy(values, (j - 1) * 3, values, j * 3, 3);
+			}
+			times[j] = t;
+			values[j * 3] = x;
+			values[j * 3 + 1] = y;
+			values[j * 3 + 2] = z;
+		}
+	}
+	
+	/**
+	 * Merge sorted ranges {@code [lo, mid)} and {@code [mid, hi)} of source into destination
+	 */
+	private static void merge(
+		double[] times,
+		double[] values,
+		double[] dstTimes,
+		double[] dstValues,
+		int lo,
+		int mid,
+		int hi
+	) {
+		int a = lo, b = mid;
+		for(int k = lo; k < hi; ++k)
+		{
+			// Take from the left on ties to keep the sort stable
+			final boolean left = b >= hi || a < mid && Double.compare(times[a], times[b]) <= 0;
+			final int src = left ? a++ : b++;
+			dstTimes[k] = times[src];
+			System.arraycopy(values, src * 3, dstValues, k * 3, 3);
+		}
+	}
+	
+	/**
+	 * Samples the track during forward playback. Each call only steps over the key frames passed
+	 * since the previous call. Moving backward falls back to a binary search.
+	 */
+	public final class Cursor
+	{
+		private int index = -1;
+		
+		private Cursor() { }
+		
+		public double[] sample(double time, double[] dst, int off)
+		{
+			this.index = KeyframeTrack.this.sample(time, this.index, dst, off);
+			return dst;
+		}
+		
+		/**
+		 * Restart from the beginning of the track
+		 */
+		public void reset() { this.index = -1; }
+	}
+}
@@ -0,0 +1,274 @@
+package com.util;
+
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * <p>Scans text line by line and parses numbers directly out of the current line. Implementations
+ * keep the line in a reused buffer, so neither a line nor a number creates a {@link String}, and
+ * huge model sources can be fed through without producing any garbage during the parse.</p>
+ * 
+ * <p>Numbers are recognized in Java literal form, e.g. {@code -1.5F}, {@code 2}, {@code 0.1D} or
+ * {@code 3E-2f}. Values that can not be converted exactly on the fast path (more than 18
+ * significant digits or large exponents) fall back to the JDK parser.</p>
+ * 
+ * @see CharScanner
+ * @see ByteScanner
+ * @author Giant_Salted_Fish
+ */
+public abstract class LineScanner implements Closeable
+{
+	private static final double[] POW10 = {
+		1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10,
+		1E11, 1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+	};
+	
+	private static final long MAX_EXACT = 1L << 53;
+	
+	/**
+	 * Length of current line
+	 */
+	protected int len = 0;
+	
+	/**
+	 * Cursor in current line
+	 */
+	protected int pos = 0;
+	
+	/**
+	 * Used by the number parser to report where the last parsed number ends. Avoids returning a
+	 * pair of values.
+	 */
+	private int end = 0;
+	
+	/**
+	 * Open a file for scanning
+	 * 
+	 * @param mmap
+	 *     {@code true} to memory map the file and scan its raw bytes with {@link ByteScanner},
+	 *     otherwise it is read through a {@link CharScanner}
+	 */
+	public static LineScanner open(String file, boolean mmap) throws IOException
+	{
+		return mmap ? ByteScanner.map(file) : new CharScanner(new FileReader(file));
+	}
+	
+	/**
+	 * Read next line and reset cursor to the start of it. Line terminators are not included.
+	 * 
+	 * @return {@code false} if the end of the input has been reached
+	 */
+	public abstract boolean nextLine() throws IOException;
+	
+	/**
+	 * @return Character at given index of current line
+	 */
+	protected abstract int at(int i);
+	
+	/**
+	 * @return Length of current line
+	 */
+	public final int length() { return this.len; }
+	
+	public final char charAt(int i) { return (char)this.at(i); }
+	
+	/**
+	 * @return Current position of the cursor in line
+	 */
+	public final int position() { return this.pos; }
+	
+	/**
+	 * Move cursor to the given position in current line. Numbers will be searched from there.
+	 */
+	public final LineScanner seek(int pos)
+	{
+		this.pos = pos;
+		return this;
+	}
+	
+	public final int indexOf(char c) { return this.indexOf(c, 0); }
+	
+	public final int indexOf(char c, int from)
+	{
+		for(int i = from; i < this.len; ++i)
+			if(this.at(i) == c) return i;
+		return -1;
+	}
+	
+	public final int indexOf(String s) { return this.indexOf(s, 0); }
+	
+	public final int indexOf(String s, int from)
+	{
+		final int n = s.length();
+		final char first = s.charAt(0);
+		search:
+		for(int i = from, max = this.len - n; i <= max; ++i)
+		{
+			if(this.at(i) != first) continue;
+			for(int j = 1; j < n; ++j)
+				if(this.at(i + j) != s.charAt(j)) continue search;
+			return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return A new string with the given range of current line
+	 */
+	public abstract String substring(int from, int to);
+	
+	@Override
+	public String toString() { return this.substring(0, this.len); }
+	
+	/**
+	 * Parse next integer starting from the cursor and move cursor to the end of it. Any character
+	 * that can not start a number is skipped.
+	 */
+	public final int nextInt()
+	{
+		int i = this.skipToNumber();
+		final boolean negative = this.at(i) == '-';
+		if(negative || this.at(i) == '+') ++i;
+		
+		int value = 0;
+		for(int c; i < this.len && (c = this.at(i)) >= '0' && c <= '9'; ++i)
+			value = value * 10 + (c - '0');
+		
+		this.pos = i;
+		return negative ? -value : value;
+	}
+	
+	/**
+	 * Parse next float starting from the cursor and move cursor to the end of it(including the
+	 * type suffix). Any character that can not start a number is skipped.
+	 */
+	public final float nextFloat()
+	{
+		final int start = this.skipToNumber();
+		final double value = this.parse(start);
+		final long bits = Double.doubleToRawLongBits(value);
+		
+		// Double rounding to float can only go wrong if the double lands exactly on the middle
+		// of two floats, or if the result is a sub-normal float
+		final double abs = Math.abs(value);
+		if(
+			value != value
+			|| (bits & 0x1FFFFFFFL) == 0x10000000L
+			|| abs != 0D && abs < Float.MIN_NORMAL
+		) return Float.parseFloat(this.substring(start, this.pos = this.end));
+		
+		this.pos = this.end;
+		return (float)value;
+	}
+	
+	/**
+	 * Parse next double starting from the cursor and move cursor to the end of it(including the
+	 * type suffix). Any character that can not start a number is skipped.
+	 */
+	public final double nextDouble()
+	{
+		final int start = this.skipToNumber();
+		final double value = this.parse(start);
+		if(value != value)
+			return Double.parseDouble(this.substring(start, this.pos = this.end));
+		
+		this.pos = this.end;
+		return value;
+	}
+	
+	/**
+	 * Parse given amount of floats into the destination array
+	 * 
+	 * @see #nextFloat()
+	 */
+	public final LineScanner nextFloats(float[] dst, int off, int count)
+	{
+		for(int i = off, end = off + count; i < end; dst[i++] = this.nextFloat());
+		return this;
+	}
+	
+	private int skipToNumber()
+	{
+		for(int i = this.pos; i < this.len; ++i)
+		{
+			int c = this.at(i);
+			if(c >= '0' && c <= '9') return i;
+			if(c != '-' && c != '+' && c != '.') continue;
+			
+			// Sign or dot is only a part of a number if a digit follows
+			int j = i + 1;
+			if(c != '.' && j < this.len && this.at(j) == '.') ++j;
+			if(j < this.len && (c = this.at(j)) >= '0' && c <= '9') return i;
+		}
+		throw new NumberFormatException("no number left in <" + this + "> from " + this.pos);
+	}
+	
+	/**
+	 * Parse number starting at given index and record where it ends in {@link #end}
+	 * 
+	 * @return Parsed value or {@link Double#NaN} if it can not be converted exactly
+	 */
+	private double parse(int i)
+	{
+		final int len = this.len;
+		
+		final boolean negative = this.at(i) == '-';
+		if(negative || this.at(i) == '+') ++i;
+		
+		long mantissa = 0L;
+		int digits = 0, exp = 0;
+		boolean exact = true;
+		
+		int c;
+		for(; i < len && (c = this.at(i)) >= '0' && c <= '9'; ++i)
+		{
+			if(digits < 18)
+			{
+				mantissa = mantissa * 10 + (c - '0');
+				if(mantissa != 0L) ++digits;
+			}
+			else
+			{
+				++exp;
+				exact &= c == '0';
+			}
+		}
+		
+		if(i < len && this.at(i) == '.')
+			for(++i; i < len && (c = this.at(i)) >= '0' && c <= '9'; ++i)
+			{
+				if(digits < 18)
+				{
+					mantissa = mantissa * 10 + (c - '0');
+					if(mantissa != 0L) ++digits;
+					--exp;
+				}
+				else exact &= c == '0';
+			}
+		
+		if(i < len && ((c = this.at(i)) == 'e' || c == 'E'))
+		{
+			++i;
+			final boolean negExp = i < len && this.at(i) == '-';
+			if(negExp || i < len && this.at(i) == '+') ++i;
+			
+			int e = 0;
+			for(; i < len && (c = this.at(i)) >= '0' && c <= '9'; ++i)
+				e = e < 1000 ? e * 10 + (c - '0') : e;
+			exp += negExp ? -e : e;
+		}
+		
+		if(i < len && ((c = this.at(i)) == 'F' || c == 'f' || c == 'D' || c == 'd')) ++i;
+		this.end = i;
+		
+		if(!exact || mantissa >= MAX_EXACT) return Double.NaN;
+		
+		final double value;
+		if(mantissa == 0L) value = 0D;
+		else if(exp < 0 && exp >= -22) value = mantissa / POW10[-exp];
+		else if(exp >= 0 && exp <= 22) value = mantissa * POW10[exp];
+		else return Double.NaN;
+		return negative ? -value : value;
+	}
+}
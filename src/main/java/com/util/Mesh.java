@@ -0,0 +1,145 @@
+package com.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>Indexed triangle mesh that shares vertices by position. Positions are quantized to a grid of
+ * given cell size and a vertex that falls into the cell of an earlier one is merged into it,
+ * keeping the position added first. Two positions closer than a cell can still land in
+ * neighbouring cells, so the quantum should be well below the smallest gap that matters.</p>
+ * 
+ * <p>Triangles that become degenerate because two of their vertices are merged are dropped.
+ * Vertices are packed xyz and triangles are packed vertex indices in the order they are added.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class Mesh
+{
+	public static final float DEF_QUANTUM = 1E-4F;
+	
+	private static final long MIX = 0x9E3779B97F4A7C15L;
+	
+	public final float quantum;
+	
+	private final double inverse;
+	
+	private float[] vertices = new float[64 * 3];
+	
+	/**
+	 * Quantized xyz of each vertex
+	 */
+	private long[] cells = new long[64 * 3];
+	
+	private int vertexCount = 0;
+	
+	private int[] triangles = new int[64 * 3];
+	
+	private int triangleCount = 0;
+	
+	/**
+	 * Open addressing table of vertex index plus one, {@code 0} for an empty slot
+	 */
+	private int[] slots = new int[128];
+	
+	public Mesh() { this(DEF_QUANTUM); }
+	
+	public Mesh(float quantum)
+	{
+		if(!(quantum > 0F)) throw new IllegalArgumentException("quantum must be positive");
+		
+		this.quantum = quantum;
+		this.inverse = 1D / quantum;
+	}
+	
+	/**
+	 * Add a vertex or find the one already in its cell
+	 * 
+	 * @return Index of the vertex
+	 */
+	public int vertex(float x, float y, float z)
+	{
+		final long cx = Math.round(x * this.inverse);
+		final long cy = Math.round(y * this.inverse);
+		final long cz = Math.round(z * this.inverse);
+		
+		final int mask = this.slots.length - 1;
+		int slot = hash(cx, cy, cz) & mask;
+		for(int s; (s = this.slots[slot]) != 0; slot = slot + 1 & mask)
+		{
+			final int c = (s - 1) * 3;
+			if(this.cells[c] == cx && this.cells[c + 1] == cy && this.cells[c + 2] == cz)
+				return s - 1;
+		}
+		
+		final int i = this.vertexCount++;
+		if(i * 3 == this.vertices.length)
+		{
+			this.vertices = Arrays.copyOf(this.vertices, this.vertices.length * 2);
+			this.cells = Arrays.copyOf(this.cells, this.cells.length * 2);
+		}
+		this.vertices[i * 3] = x;
+		this.vertices[i * 3 + 1] = y;
+		this.vertices[i * 3 + 2] = z;
+		this.cells[i * 3] = cx;
+		this.cells[i * 3 + 1] = cy;
+		this.cells[i * 3 + 2] = cz;
+		this.slots[slot] = i + 1;
+		
+		// Keep the table at most half full
+		if(this.vertexCount * 2 > this.slots.length) this.rehash();
+		return i;
+	}
+	
+	/**
+	 * Add a triangle of given vertex indices. Triangles with two same vertices are dropped.
+	 * 
+	 * @return {@code false} if the triangle is dropped
+	 */
+	public boolean triangle(int a, int b, int c)
+	{
+		if(a == b || b == c || c == a) return false;
+		
+		final int t = this.triangleCount++ * 3;
+		if(t == this.triangles.length)
+			this.triangles = Arrays.copyOf(this.triangles, this.triangles.length * 2);
+		this.triangles[t] = a;
+		this.triangles[t + 1] = b;
+		this.triangles[t + 2] = c;
+		return true;
+	}
+	
+	public int vertexCount() { return this.vertexCount; }
+	
+	public int triangleCount() { return this.triangleCount; }
+	
+	/**
+	 * @return Packed xyz of the vertices, valid up to {@link #vertexCount()}
+	 */
+	public float[] vertices() { return this.vertices; }
+	
+	/**
+	 * @return Packed vertex indices of the triangles, valid up to {@link #triangleCount()}
+	 */
+	public int[] triangles() { return this.triangles; }
+	
+	private void rehash()
+	{
+		final int[] slots = new int[this.slots.length * 2];
+		final int mask = slots.length - 1;
+		for(int i = 0; i < this.vertexCount; ++i)
+		{
+			final int c = i * 3;
+			int slot = hash(this.cells[c], this.cells[c + 1], this.cells[c + 2]) & mask;
+			while(slots[slot] != 0) slot = slot + 1 & mask;
+			slots[slot] = i + 1;
+		}
+		this.slots = slots;
+	}
+	
+	private static int hash(long x, long y, long z)
+	{
+		long h = (x * MIX + y) * MIX + z;
+		h *= MIX;
+		return (int)(h ^ h >>> 32);
+	}
+}
@@ -0,0 +1,301 @@
+package com.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <p>A buffered {@link Writer} that formats numbers directly into its buffer. Neither a number
+ * nor a line creates any {@link String}, so the converters can write millions of values without
+ * producing garbage.</p>
+ * 
+ * <p>Floating point values are written in the same form as {@link Float#toString(float)} and
+ * {@link Double#toString(double)}, but with the shortest digits that still parse back to the same
+ * value. A candidate is only taken if it can be checked exactly with one rounded operation, which
+ * covers values from about {@code 1E-13} to {@code 1E22} with up to 15 significant digits. Other
+ * values fall back to the JDK formatter. With a precision set, values are rounded to at most that
+ * many significant digits instead, which may not parse back to the same value.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class NumberWriter extends Writer
+{
+	private static final double[] POW10 = {
+		1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10,
+		1E11, 1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+	};
+	
+	private static final double LOG10_2 = 0.30102999566398114D;
+	
+	/**
+	 * Integers below this are exact in a {@code double}
+	 */
+	private static final long MAX_EXACT = 1L << 53;
+	
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+	
+	private final Writer out;
+	
+	private final char[] buf;
+	
+	private int pos = 0;
+	
+	/**
+	 * Max significant digits, {@code 0} for the shortest digits that round trip
+	 */
+	private final int precision;
+	
+	/**
+	 * Digits of the number being written
+	 */
+	private final char[] digits = new char[20];
+	
+	public NumberWriter(Writer out) { this(out, 0); }
+	
+	/**
+	 * @param precision
+	 *     Max significant digits of floating point values, or {@code 0} for the shortest digits
+	 *     that parse back to the same value
+	 */
+	public NumberWriter(Writer out, int precision)
+	{
+		if(precision < 0 || precision > 17)
+			throw new IllegalArgumentException("invalid precision <" + precision + ">");
+		
+		this.out = out;
+		this.buf = new char[8192];
+		this.precision = precision;
+	}
+	
+	/**
+	 * @return A new writer into given writer with the same precision as this one
+	 */
+	public NumberWriter fork(Writer out) { return new NumberWriter(out, this.precision); }
+	
+	public NumberWriter print(char c) throws IOException
+	{
+		if(this.pos == this.buf.length) this.flushBuffer();
+		this.buf[this.pos++] = c;
+		return this;
+	}
+	
+	public NumberWriter print(String s) throws IOException
+	{
+		this.write(s, 0, s.length());
+		return this;
+	}
+	
+	public NumberWriter print(int i) throws IOException { return this.print((long)i); }
+	
+	public NumberWriter print(long l) throws IOException
+	{
+		if(l == Long.MIN_VALUE) return this.print(Long.toString(l));
+		
+		if(l < 0L) this.print('-');
+		int n = this.digits.length;
+		long u = Math.abs(l);
+		do
+		{
+			this.digits[--n] = (char)('0' + u % 10L);
+			u /= 10L;
+		}
+		while(u != 0L);
+		this.write(this.digits, n, this.digits.length - n);
+		return this;
+	}
+	
+	/**
+	 * Write in the form of {@link Float#toString(float)}, e.g. {@code 1.5}, {@code 0.001} or
+	 * {@code 1.0E-4}
+	 */
+	public NumberWriter print(float f) throws IOException
+	{
+		if(Float.isNaN(f) || Float.isInfinite(f) || f == 0F) return this.print(Float.toString(f));
+		
+		final double a = Math.abs((double)f);
+		final float abs = Math.abs(f);
+		final int maxDigits = this.precision > 0 ? this.precision : 9;
+		for(int s = (int)Math.floor(Math.getExponent(a) * LOG10_2) + 1, n = 0; n <= maxDigits; --s)
+		{
+			if(s > 22 || s < -22) break;
+			
+			// Ties go to the even digit like the JDK formatter does
+			final long m = (long)Math.rint(s >= 0 ? a / POW10[s] : a * POW10[-s]);
+			if(m == 0L) continue;
+			
+			++n;
+			final double v = s >= 0 ? m * POW10[s] : m / POW10[-s];
+			
+			// Converting to float again may round twice if the double is right between two floats
+			final boolean exact = (float)v == abs && !isFloatMidpoint(v);
+			if(exact || this.precision > 0 && digitCount(m) >= this.precision)
+			{
+				this.printDecimal(f < 0F, m, s);
+				return this;
+			}
+		}
+		return this.print(Float.toString(f));
+	}
+	
+	/**
+	 * Write in the form of {@link Double#toString(double)}, e.g. {@code 1.5}, {@code 0.001} or
+	 * {@code 1.0E-4}
+	 */
+	public NumberWriter print(double d) throws IOException
+	{
+		if(Double.isNaN(d) || Double.isInfinite(d) || d == 0D)
+			return this.print(Double.toString(d));
+		
+		final double a = Math.abs(d);
+		final int maxDigits = this.precision > 0 ? this.precision : 17;
+		for(int s = (int)Math.floor(Math.getExponent(a) * LOG10_2) + 1, n = 0; n <= maxDigits; --s)
+		{
+			if(s > 22 || s < -22) break;
+			
+			final long m = (long)Math.rint(s >= 0 ? a / POW10[s] : a * POW10[-s]);
+			if(m == 0L) continue;
+			if(m >= MAX_EXACT) break;
+			
+			++n;
+			final double v = s >= 0 ? m * POW10[s] : m / POW10[-s];
+			if(v == a || this.precision > 0 && digitCount(m) >= this.precision)
+			{
+				this.printDecimal(d < 0D, m, s);
+				return this;
+			}
+		}
+		return this.print(Double.toString(d));
+	}
+	
+	public NumberWriter newLine() throws IOException { return this.print(LINE_SEPARATOR); }
+	
+	@Override
+	public void write(int c) throws IOException { this.print((char)c); }
+	
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException
+	{
+		if(len > this.buf.length)
+		{
+			this.flushBuffer();
+			this.out.write(cbuf, off, len);
+			return;
+		}
+		
+		if(len > this.buf.length - this.pos) this.flushBuffer();
+		System.arraycopy(cbuf, off, this.buf, this.pos, len);
+		this.pos += len;
+	}
+	
+	@Override
+	public void write(String str, int off, int len) throws IOException
+	{
+		while(len > 0)
+		{
+			if(this.pos == this.buf.length) this.flushBuffer();
+			
+			final int n = Math.min(len, this.buf.length - this.pos);
+			str.getChars(off, off + n, this.buf, this.pos);
+			this.pos += n;
+			off += n;
+			len -= n;
+		}
+	}
+	
+	/**
+	 * Write buffered chars to the underlying writer and flush it
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		this.flushBuffer();
+		this.out.flush();
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		this.flushBuffer();
+		this.out.close();
+	}
+	
+	private void flushBuffer() throws IOException
+	{
+		if(this.pos == 0) return;
+		
+		this.out.write(this.buf, 0, this.pos);
+		this.pos = 0;
+	}
+	
+	/**
+	 * Write {@code m * 10^s} in the form of the JDK formatter
+	 */
+	private void printDecimal(boolean negative, long m, int s) throws IOException
+	{
+		while(m % 10L == 0L)
+		{
+			m /= 10L;
+			++s;
+		}
+		
+		final char[] digits = this.digits;
+		int n = digits.length;
+		do
+		{
+			digits[--n] = (char)('0' + m % 10L);
+			m /= 10L;
+		}
+		while(m != 0L);
+		final int len = digits.length - n;
+		
+		// Decimal exponent of the first digit
+		final int e = s + len - 1;
+		
+		if(negative) this.print('-');
+		if(e < -3 || e >= 7)
+		{
+			this.print(digits[n]).print('.');
+			if(len > 1) this.write(digits, n + 1, len - 1);
+			else this.print('0');
+			this.print('E').print(e);
+		}
+		else if(e < 0)
+		{
+			this.print('0').print('.');
+			for(int i = -1; i > e; --i) this.print('0');
+			this.write(digits, n, len);
+		}
+		else if(e + 1 >= len)
+		{
+			this.write(digits, n, len);
+			for(int i = len; i < e + 1; ++i) this.print('0');
+			this.print('.').print('0');
+		}
+		else
+		{
+			this.write(digits, n, e + 1);
+			this.print('.');
+			this.write(digits, n + e + 1, len - e - 1);
+		}
+	}
+	
+	/**
+	 * @return {@code true} if the double lies exactly between two adjacent normal floats
+	 */
+	private static boolean isFloatMidpoint(double v)
+	{
+		// Float keeps the upper 23 of the 52 mantissa bits, midpoint has only the next bit set
+		final long mantissa = Double.doubleToRawLongBits(v) & 0xFFFFFFFFFFFFFL;
+		return (mantissa & 0x1FFFFFFFL) == 0x10000000L;
+	}
+	
+	private static int digitCount(long m)
+	{
+		int n = 1;
+		while(m >= 10L)
+		{
+			m /= 10L;
+			++n;
+		}
+		return n;
+	}
+}
@@ -5,31 +5,89 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * A simple pool to buffer instances like {@link Vec3}
- *
+ * <p>A simple pool to buffer instances like {@link Vec3}.</p>
+ * 
+ * <p>In default each thread keeps its own stack of instances, so {@link #poll()} and
+ * {@link #back(Object)} do not need any lock as long as the stack neither runs empty nor full.
+ * Stacks exchange half of their instances with a striped shared overflow when that happens.
+ * Instances that do not fit into the overflow are dropped.</p>
+ * 
+ * <p>Pools created with a {@link Recycler} keep the instances in a {@link List} instead. Access to
+ * the list is synchronized on the list.</p>
+ * 
  * @param <T> Class of buffered instance
  * 
  * @author Giant_Salted_Fish
  */
 public final class ObjPool<T>
 {
-	private final List<T> pool;
+	/**
+	 * Default max amount of instances buffered by each thread
+	 */
+	public static final int DEF_LOCAL_CAPACITY = 64;
+	
+	/**
+	 * Default max amount of instances buffered in the shared overflow
+	 */
+	public static final int DEF_SHARED_CAPACITY = 1024;
+	
 	private final ObjFactory<T> factory;
+	
+	private final ThreadLocal<Stack> local;
+	
+	/**
+	 * Shared overflow. Length is a power of 2.
+	 */
+	private final Stack[] stripes;
+	
+	private final List<T> pool;
 	private final Recycler<T> recycler;
 	
 	/**
-	 * In default it uses a synchronized {@link ArrayList} as pool which guarantee the thread safe
+	 * Create a pool with thread local stacks of default capacity
 	 * 
 	 * @param factory Instance factory which provides instance when there is none left in pool
 	 */
 	public ObjPool(ObjFactory<T> factory)
 	{
-		this(
-			factory,
-			(instance, pool) -> { if(pool.size() < 64) pool.add(instance); }
+		this(factory, DEF_LOCAL_CAPACITY, DEF_SHARED_CAPACITY);
+	}
+	
+	/**
+	 * @param factory Instance factory which provides instance when there is none left in pool
+	 * @param localCapacity Max amount of instances buffered by each thread
+	 * @param sharedCapacity Max amount of instances buffered in the shared overflow
+	 */
+	public ObjPool(ObjFactory<T> factory, int localCapacity, int sharedCapacity)
+	{
+		if(localCapacity < 0 || sharedCapacity < 0)
+			throw new IllegalArgumentException(
+				"negative capacity <" + localCapacity + ", " + sharedCapacity + ">"
+			);
+		
+		this.factory = factory;
+		this.pool = null;
+		this.recycler = null;
+		
+		// One stripe for each core so that threads rarely meet on the same stripe
+		int count = 1;
+		final int cores = Runtime.getRuntime().availableProcessors();
+		while(count < cores && count < sharedCapacity) count <<= 1;
+		
+		this.stripes = new Stack[count];
+		final int stripeCapacity = (sharedCapacity + count - 1) / count;
+		for(int i = 0; i < count; ++i) this.stripes[i] = new Stack(stripeCapacity, i);
+		
+		final int mask = count - 1;
+		this.local = ThreadLocal.withInitial(
+			() -> new Stack(localCapacity, (int)Thread.currentThread().getId() & mask)
 		);
 	}
 	
+	/**
+	 * @param factory Instance factory which provides instance when there is none left in pool
+	 * @param recycler Decides whether to put an instance given back into the pool
+	 */
 	public ObjPool(ObjFactory<T> factory, Recycler<T> recycler)
 	{
 		this(
@@ -44,19 +102,126 @@ public final class ObjPool<T>
 		this.pool = pool;
 		this.factory = factory;
 		this.recycler = recycler;
+		this.local = null;
+		this.stripes = null;
 	}
 	
+	@SuppressWarnings("unchecked")
 	public T poll()
 	{
-		return (
-			this.pool.size() > 0
-			? this.pool.remove(this.pool.size() - 1)
-			: this.factory.produce()
-		);
+		if(this.pool != null)
+		{
+			T instance = null;
+			synchronized(this.pool)
+			{
+				final int size = this.pool.size();
+				if(size > 0) instance = this.pool.remove(size - 1);
+			}
+			return instance != null ? instance : this.factory.produce();
+		}
+		
+		final Stack local = this.local.get();
+		if(local.size > 0)
+		{
+			final Object instance = local.items[--local.size];
+			local.items[local.size] = null;
+			return (T)instance;
+		}
+		return this.refill(local);
 	}
 	
-	public void back(T instance) { this.recycler.recycle(instance, this.pool); }
+	public void back(T instance)
+	{
+		if(this.pool != null)
+		{
+			synchronized(this.pool) { this.recycler.recycle(instance, this.pool); }
+			return;
+		}
+		
+		final Stack local = this.local.get();
+		if(local.size < local.items.length) local.items[local.size++] = instance;
+		else this.spill(local, instance);
+	}
+	
+	/**
+	 * Take up to half of a local stack from the shared overflow, starting from the home stripe of
+	 * the thread
+	 */
+	@SuppressWarnings("unchecked")
+	private T refill(Stack local)
+	{
+		final int mask = this.stripes.length - 1;
+		final int take = Math.max(1, local.items.length / 2);
+		for(int i = 0; i <= mask; ++i)
+		{
+			final Stack stripe = this.stripes[local.stripe + i & mask];
+			
+			// Racy read is only a hint to skip the lock of an empty stripe
+			if(stripe.size == 0) continue;
+			
+			synchronized(stripe)
+			{
+				if(stripe.size == 0) continue;
+				
+				for(int n = Math.min(take, stripe.size); n-- > 1; )
+				{
+					local.items[local.size++] = stripe.items[--stripe.size];
+					stripe.items[stripe.size] = null;
+				}
+				final Object instance = stripe.items[--stripe.size];
+				stripe.items[stripe.size] = null;
+				return (T)instance;
+			}
+		}
+		return this.factory.produce();
+	}
+	
+	/**
+	 * Move the upper half of a full local stack to the home stripe of the thread and push the
+	 * instance. Instances that do not fit into the stripe are dropped.
+	 */
+	private void spill(Stack local, Object instance)
+	{
+		final Stack stripe = this.stripes[local.stripe];
+		final int keep = local.size / 2;
+		synchronized(stripe)
+		{
+			if(local.items.length == 0)
+			{
+				if(stripe.size < stripe.items.length) stripe.items[stripe.size++] = instance;
+				return;
+			}
+			
+			for(int i = keep; i < local.size && stripe.size < stripe.items.length; ++i)
+				stripe.items[stripe.size++] = local.items[i];
+		}
+		
+		for(int i = keep; i < local.size; ++i) local.items[i] = null;
+		local.size = keep;
+		local.items[local.size++] = instance;
+	}
 	
 	@FunctionalInterface
 	public static interface Recycler<T> { public void recycle(T instance, List<T> pool); }
-}
\ No newline at end of file
+	
+	/**
+	 * Array stack used as both thread local stack and stripe of the shared overflow
+	 */
+	private static final class Stack
+	{
+		final Object[] items;
+		
+		int size = 0;
+		
+		/**
+		 * Index of the home stripe of the thread that owns this stack
+		 */
+		final int stripe;
+		
+		Stack(int capacity, int stripe)
+		{
+			this.items = new Object[capacity];
+			this.stripe = stripe;
+		}
+	}
+}
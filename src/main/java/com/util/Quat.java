@@ -0,0 +1,205 @@
+package com.util;
+
+/**
+ * <p>Rotation as a unit quaternion with {@code double} values. Rotations compose in a few
+ * multiplies without any trigonometry and stay orthonormal by normalizing the four values, so a
+ * long chain of rotations can be accumulated here and handed to {@link CoordSystem} once with
+ * {@link CoordSystem#rot(Quat)} or {@link CoordSystem#globalRot(Quat)}.</p>
+ * 
+ * <p>Axes and angles follow {@link CoordSystem}. Angles are in degrees and a rotation applied
+ * with {@link #rot(double, byte)} takes effect after the ones already in this quaternion, just like
+ * calling {@link CoordSystem#rot(double, byte)} in the same order.</p>
+ * 
+ * @author Giant_Salted_Fish
+ */
+public final class Quat implements Releasable
+{
+	private static final ObjPool<Quat> pool = new ObjPool<>(() -> new Quat());
+	
+	/**
+	 * Above this dot product {@link #slerp(Quat, Quat, double)} falls back to a normalized linear
+	 * interpolation, as the angle is too small to divide by its sine
+	 */
+	private static final double SLERP_THRESHOLD = 0.9995D;
+	
+	public double w = 1D, x, y, z;
+	
+	private Quat() { }
+	
+	/**
+	 * @return An identity quaternion
+	 */
+	public static Quat get() { return pool.poll().setIdentity(); }
+	
+	public static Quat get(Quat q) { return pool.poll().set(q); }
+	
+	public Quat setIdentity() { return this.set(1D, 0D, 0D, 0D); }
+	
+	public Quat set(double w, double x, double y, double z)
+	{
+		this.w = w;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	public Quat set(Quat q) { return this.set(q.w, q.x, q.y, q.z); }
+	
+	/**
+	 * Set to the rotation of given xzy angles. It matches
+	 * {@link CoordSystem#rot(double, double, double)} and is the reverse of
+	 * {@link #getAngle(Vec3)}.
+	 * 
+	 * @param x Amount to rot on X
+	 * @param y Amount to rot on Y
+	 * @param z Amount to rot on Z
+	 */
+	public Quat setAngle(double x, double y, double z)
+	{
+		this.setIdentity();
+		return this.rot(x, CoordSystem.X).rot(z, CoordSystem.Z).rot(y, CoordSystem.Y);
+	}
+	
+	/**
+	 * Rotate on required axis after the rotation of this quaternion
+	 * 
+	 * @param amount Amount to rotate in degrees
+	 * @param along Axis to rotate with. One of {@link CoordSystem#X}, {@link CoordSystem#Y},
+	 *     {@link CoordSystem#Z}.
+	 */
+	public Quat rot(double amount, byte along)
+	{
+		if(amount == 0D) return this;
+		
+		final double half = Math.toRadians(amount) / 2D;
+		final double s = Math.sin(half), c = Math.cos(half);
+		final double w = this.w, x = this.x, y = this.y, z = this.z;
+		switch(along)
+		{
+		case CoordSystem.X:
+			return this.set(c * w - s * x, c * x + s * w, c * y - s * z, c * z + s * y);
+		case CoordSystem.Y:
+			return this.set(c * w - s * y, c * x + s * z, c * y + s * w, c * z - s * x);
+		case CoordSystem.Z:
+			return this.set(c * w - s * z, c * x - s * y, c * y + s * x, c * z + s * w);
+		default: return this;
+		}
+	}
+	
+	/**
+	 * Apply given rotation after the rotation of this quaternion, {@code this = q * this}
+	 */
+	public Quat rot(Quat q) { return this.mul(q, this); }
+	
+	/**
+	 * Set to the product {@code a * b}, which is rotation {@code b} followed by rotation {@code a}.
+	 * Either of them can be this instance.
+	 */
+	public Quat mul(Quat a, Quat b)
+	{
+		return this.set(
+			a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z,
+			a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y,
+			a.w * b.y - a.x * b.z + a.y * b.w + a.z * b.x,
+			a.w * b.z + a.x * b.y - a.y * b.x + a.z * b.w
+		);
+	}
+	
+	/**
+	 * Reverse the rotation. Only an inverse for unit quaternions.
+	 */
+	public Quat conjugate() { return this.set(this.w, -this.x, -this.y, -this.z); }
+	
+	/**
+	 * Scale to unit length to remove the drift of repeated products. A zero quaternion becomes
+	 * identity.
+	 */
+	public Quat normalize()
+	{
+		final double len = Math.sqrt(this.dot(this));
+		return len > 0D ? this.set(this.w / len, this.x / len, this.y / len, this.z / len)
+			: this.setIdentity();
+	}
+	
+	public double dot(Quat q) { return this.w * q.w + this.x * q.x + this.y * q.y + this.z * q.z; }
+	
+	/**
+	 * Spherical linear interpolation along the shorter arc between two unit quaternions. Either of
+	 * them can be this instance.
+	 * 
+	 * @param t {@code 0} for {@code a} and {@code 1} for {@code b}
+	 */
+	public Quat slerp(Quat a, Quat b, double t)
+	{
+		double dot = a.dot(b);
+		
+		// q and -q are the same rotation, take the one closer to a
+		final double sign = dot < 0D ? -1D : 1D;
+		dot *= sign;
+		
+		double ka, kb;
+		if(dot > SLERP_THRESHOLD)
+		{
+			ka = 1D - t;
+			kb = t;
+		}
+		else
+		{
+			final double theta = Math.acos(dot);
+			final double sin = Math.sin(theta);
+			ka = Math.sin((1D - t) * theta) / sin;
+			kb = Math.sin(t * theta) / sin;
+		}
+		kb *= sign;
+		
+		this.set(
+			a.w * ka + b.w * kb,
+			a.x * ka + b.x * kb,
+			a.y * ka + b.y * kb,
+			a.z * ka + b.z * kb
+		);
+		return dot > SLERP_THRESHOLD ? this.normalize() : this;
+	}
+	
+	/**
+	 * Rotate the raw vector by this unit quaternion
+	 * 
+	 * @param raw Raw vector to rotate
+	 * @param dst Destination of the result. Could be the raw vector.
+	 */
+	public Vec3 apply(Vec3 raw, Vec3 dst)
+	{
+		// v + 2w(u x v) + 2u x (u x v) with u as xyz of this
+		final double tx = 2D * (this.y * raw.z - this.z * raw.y);
+		final double ty = 2D * (this.z * raw.x - this.x * raw.z);
+		final double tz = 2D * (this.x * raw.y - this.y * raw.x);
+		return dst.set(
+			raw.x + this.w * tx + this.y * tz - this.z * ty,
+			raw.y + this.w * ty + this.z * tx - this.x * tz,
+			raw.z + this.w * tz + this.x * ty - this.y * tx
+		);
+	}
+	
+	/**
+	 * Get xzy angle of this rotation in the same way as {@link CoordSystem#getAngle(Vec3)}
+	 * 
+	 * @param dst Destination vector to receive angle values
+	 */
+	public Vec3 getAngle(Vec3 dst)
+	{
+		final CoordSystem sys = CoordSystem.get();
+		sys.setRot(this, CoordSystem.MAT_NORM).getAngle(dst);
+		sys.release();
+		return dst;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "Quat(" + this.w + ", " + this.x + ", " + this.y + ", " + this.z + ")";
+	}
+	
+	@Override
+	public void release() { pool.back(this); }
+}
@@ -0,0 +1,196 @@
+package com.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * <p>Packed xyz vectors with {@code double} values in a direct {@link DoubleBuffer}. Meant for
+ * large amount of vertices that would otherwise be a {@link Vec3} each. The buffer can be handed
+ * to native consumers like OpenGL as it is with {@link #buffer()}.</p>
+ * 
+ * <p>Vectors are addressed by index and ranges of vectors are given as {@code [from, to)}. All
+ * access uses absolute indices so position and limit of the buffer are never changed.</p>
+ * 
+ * @see Vec3fBuffer
+ * @see CoordSystem#apply(Vec3Buffer, int, int)
+ * @author Giant_Salted_Fish
+ */
+public final class Vec3Buffer
+{
+	private final DoubleBuffer buf;
+	
+	private final int capacity;
+	
+	private Vec3Buffer(DoubleBuffer buf)
+	{
+		this.buf = buf;
+		this.capacity = buf.capacity() / 3;
+	}
+	
+	/**
+	 * Allocate a direct buffer in native byte order for given amount of vectors
+	 */
+	public static Vec3Buffer allocate(int capacity)
+	{
+		return new Vec3Buffer(
+			ByteBuffer.allocateDirect(capacity * 3 * Double.BYTES)
+				.order(ByteOrder.nativeOrder())
+				.asDoubleBuffer()
+		);
+	}
+	
+	/**
+	 * Use the given buffer as vector storage. First vector starts at index {@code 0}.
+	 */
+	public static Vec3Buffer wrap(DoubleBuffer buf) { return new Vec3Buffer(buf); }
+	
+	/**
+	 * @return Amount of vectors that can be stored
+	 */
+	public int capacity() { return this.capacity; }
+	
+	/**
+	 * @return Backing buffer with xyz of the vectors interleaved
+	 */
+	public DoubleBuffer buffer() { return this.buf; }
+	
+	public double x(int i) { return this.buf.get(i * 3); }
+	
+	public double y(int i) { return this.buf.get(i * 3 + 1); }
+	
+	public double z(int i) { return this.buf.get(i * 3 + 2); }
+	
+	public Vec3 get(int i, Vec3 dst)
+	{
+		final int j = i * 3;
+		return dst.set(this.buf.get(j), this.buf.get(j + 1), this.buf.get(j + 2));
+	}
+	
+	public Vec3Buffer set(int i, double x, double y, double z)
+	{
+		final int j = i * 3;
+		this.buf.put(j, x);
+		this.buf.put(j + 1, y);
+		this.buf.put(j + 2, z);
+		return this;
+	}
+	
+	public Vec3Buffer set(int i, Vec3 v) { return this.set(i, v.x, v.y, v.z); }
+	
+	/**
+	 * Copy packed xyz triples out of this buffer
+	 * 
+	 * @param i Index of the first vector to copy
+	 * @param count Amount of vectors to copy
+	 */
+	public double[] get(int i, double[] dst, int off, int count)
+	{
+		final DoubleBuffer buf = this.buf.duplicate();
+		buf.position(i * 3);
+		buf.get(dst, off, count * 3);
+		return dst;
+	}
+	
+	/**
+	 * Copy packed xyz triples into this buffer
+	 * 
+	 * @param i Index of the first vector to write
+	 * @param count Amount of vectors to copy
+	 */
+	public Vec3Buffer put(int i, double[] src, int off, int count)
+	{
+		final DoubleBuffer buf = this.buf.duplicate();
+		buf.position(i * 3);
+		buf.put(src, off, count * 3);
+		return this;
+	}
+	
+	/**
+	 * Translate each vector in range with given xyz
+	 */
+	public Vec3Buffer trans(int from, int to, double x, double y, double z)
+	{
+		final DoubleBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			buf.put(j, buf.get(j) + x);
+			buf.put(j + 1, buf.get(j + 1) + y);
+			buf.put(j + 2, buf.get(j + 2) + z);
+		}
+		return this;
+	}
+	
+	public Vec3Buffer trans(int from, int to, Vec3 v)
+	{
+		return this.trans(from, to, v.x, v.y, v.z);
+	}
+	
+	/**
+	 * Add vectors of another buffer to the vectors in range, one by one
+	 * 
+	 * @param src Buffer to add from. Can be this buffer.
+	 * @param srcFrom Index of the vector in source to add to the vector at {@code from}
+	 */
+	public Vec3Buffer trans(int from, int to, Vec3Buffer src, int srcFrom)
+	{
+		final DoubleBuffer buf = this.buf, other = src.buf;
+		for(int j = from * 3, k = srcFrom * 3, end = to * 3; j < end; j += 3, k += 3)
+		{
+			buf.put(j, buf.get(j) + other.get(k));
+			buf.put(j + 1, buf.get(j + 1) + other.get(k + 1));
+			buf.put(j + 2, buf.get(j + 2) + other.get(k + 2));
+		}
+		return this;
+	}
+	
+	public Vec3Buffer scale(int from, int to, double s) { return this.scale(from, to, s, s, s); }
+	
+	public Vec3Buffer scale(int from, int to, double x, double y, double z)
+	{
+		final DoubleBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			buf.put(j, buf.get(j) * x);
+			buf.put(j + 1, buf.get(j + 1) * y);
+			buf.put(j + 2, buf.get(j + 2) * z);
+		}
+		return this;
+	}
+	
+	/**
+	 * Replace each vector in range with its cross product with the given vector
+	 * 
+	 * @see Vec3#cross(Vec3)
+	 */
+	public Vec3Buffer cross(int from, int to, Vec3 v)
+	{
+		final DoubleBuffer buf = this.buf;
+		final double vx = v.x, vy = v.y, vz = v.z;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final double x = buf.get(j), y = buf.get(j + 1), z = buf.get(j + 2);
+			buf.put(j, y * vz - z * vy);
+			buf.put(j + 1, z * vx - x * vz);
+			buf.put(j + 2, x * vy - y * vx);
+		}
+		return this;
+	}
+	
+	/**
+	 * @see Vec3#normalize()
+	 */
+	public Vec3Buffer normalize(int from, int to)
+	{
+		final DoubleBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final double x = buf.get(j), y = buf.get(j + 1), z = buf.get(j + 2);
+			final double s = 1D / Math.sqrt(x * x + y * y + z * z);
+			buf.put(j, x * s);
+			buf.put(j + 1, y * s);
+			buf.put(j + 2, z * s);
+		}
+		return this;
+	}
+}
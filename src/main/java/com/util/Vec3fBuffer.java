@@ -0,0 +1,196 @@
+package com.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * <p>Packed xyz vectors with {@code float} values in a direct {@link FloatBuffer}. Meant for large
+ * amount of vertices that would otherwise be a {@link Vec3f} each. The buffer can be handed to
+ * native consumers like OpenGL as it is with {@link #buffer()}.</p>
+ * 
+ * <p>Vectors are addressed by index and ranges of vectors are given as {@code [from, to)}. All
+ * access uses absolute indices so position and limit of the buffer are never changed.</p>
+ * 
+ * @see Vec3Buffer
+ * @see CoordSystem#apply(Vec3fBuffer, int, int)
+ * @author Giant_Salted_Fish
+ */
+public final class Vec3fBuffer
+{
+	private final FloatBuffer buf;
+	
+	private final int capacity;
+	
+	private Vec3fBuffer(FloatBuffer buf)
+	{
+		this.buf = buf;
+		this.capacity = buf.capacity() / 3;
+	}
+	
+	/**
+	 * Allocate a direct buffer in native byte order for given amount of vectors
+	 */
+	public static Vec3fBuffer allocate(int capacity)
+	{
+		return new Vec3fBuffer(
+			ByteBuffer.allocateDirect(capacity * 3 * Float.BYTES)
+				.order(ByteOrder.nativeOrder())
+				.asFloatBuffer()
+		);
+	}
+	
+	/**
+	 * Use the given buffer as vector storage. First vector starts at index {@code 0}.
+	 */
+	public static Vec3fBuffer wrap(FloatBuffer buf) { return new Vec3fBuffer(buf); }
+	
+	/**
+	 * @return Amount of vectors that can be stored
+	 */
+	public int capacity() { return this.capacity; }
+	
+	/**
+	 * @return Backing buffer with xyz of the vectors interleaved
+	 */
+	public FloatBuffer buffer() { return this.buf; }
+	
+	public float x(int i) { return this.buf.get(i * 3); }
+	
+	public float y(int i) { return this.buf.get(i * 3 + 1); }
+	
+	public float z(int i) { return this.buf.get(i * 3 + 2); }
+	
+	public Vec3f get(int i, Vec3f dst)
+	{
+		final int j = i * 3;
+		return dst.set(this.buf.get(j), this.buf.get(j + 1), this.buf.get(j + 2));
+	}
+	
+	public Vec3fBuffer set(int i, float x, float y, float z)
+	{
+		final int j = i * 3;
+		this.buf.put(j, x);
+		this.buf.put(j + 1, y);
+		this.buf.put(j + 2, z);
+		return this;
+	}
+	
+	public Vec3fBuffer set(int i, Vec3f v) { return this.set(i, v.x, v.y, v.z); }
+	
+	/**
+	 * Copy packed xyz triples out of this buffer
+	 * 
+	 * @param i Index of the first vector to copy
+	 * @param count Amount of vectors to copy
+	 */
+	public float[] get(int i, float[] dst, int off, int count)
+	{
+		final FloatBuffer buf = this.buf.duplicate();
+		buf.position(i * 3);
+		buf.get(dst, off, count * 3);
+		return dst;
+	}
+	
+	/**
+	 * Copy packed xyz triples into this buffer
+	 * 
+	 * @param i Index of the first vector to write
+	 * @param count Amount of vectors to copy
+	 */
+	public Vec3fBuffer put(int i, float[] src, int off, int count)
+	{
+		final FloatBuffer buf = this.buf.duplicate();
+		buf.position(i * 3);
+		buf.put(src, off, count * 3);
+		return this;
+	}
+	
+	/**
+	 * Translate each vector in range with given xyz
+	 */
+	public Vec3fBuffer trans(int from, int to, float x, float y, float z)
+	{
+		final FloatBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			buf.put(j, buf.get(j) + x);
+			buf.put(j + 1, buf.get(j + 1) + y);
+			buf.put(j + 2, buf.get(j + 2) + z);
+		}
+		return this;
+	}
+	
+	public Vec3fBuffer trans(int from, int to, Vec3f v)
+	{
+		return this.trans(from, to, v.x, v.y, v.z);
+	}
+	
+	/**
+	 * Add vectors of another buffer to the vectors in range, one by one
+	 * 
+	 * @param src Buffer to add from. Can be this buffer.
+	 * @param srcFrom Index of the vector in source to add to the vector at {@code from}
+	 */
+	public Vec3fBuffer trans(int from, int to, Vec3fBuffer src, int srcFrom)
+	{
+		final FloatBuffer buf = this.buf, other = src.buf;
+		for(int j = from * 3, k = srcFrom * 3, end = to * 3; j < end; j += 3, k += 3)
+		{
+			buf.put(j, buf.get(j) + other.get(k));
+			buf.put(j + 1, buf.get(j + 1) + other.get(k + 1));
+			buf.put(j + 2, buf.get(j + 2) + other.get(k + 2));
+		}
+		return this;
+	}
+	
+	public Vec3fBuffer scale(int from, int to, float s) { return this.scale(from, to, s, s, s); }
+	
+	public Vec3fBuffer scale(int from, int to, float x, float y, float z)
+	{
+		final FloatBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			buf.put(j, buf.get(j) * x);
+			buf.put(j + 1, buf.get(j + 1) * y);
+			buf.put(j + 2, buf.get(j + 2) * z);
+		}
+		return this;
+	}
+	
+	/**
+	 * Replace each vector in range with its cross product with the given vector
+	 * 
+	 * @see Vec3f#cross(Vec3f)
+	 */
+	public Vec3fBuffer cross(int from, int to, Vec3f v)
+	{
+		final FloatBuffer buf = this.buf;
+		final float vx = v.x, vy = v.y, vz = v.z;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final float x = buf.get(j), y = buf.get(j + 1), z = buf.get(j + 2);
+			buf.put(j, y * vz - z * vy);
+			buf.put(j + 1, z * vx - x * vz);
+			buf.put(j + 2, x * vy - y * vx);
+		}
+		return this;
+	}
+	
+	/**
+	 * @see Vec3f#normalize()
+	 */
+	public Vec3fBuffer normalize(int from, int to)
+	{
+		final FloatBuffer buf = this.buf;
+		for(int j = from * 3, end = to * 3; j < end; j += 3)
+		{
+			final float x = buf.get(j), y = buf.get(j + 1), z = buf.get(j + 2);
+			final float s = 1F / (float)Math.sqrt(x * x + y * y + z * z);
+			buf.put(j, x * s);
+			buf.put(j + 1, y * s);
+			buf.put(j + 2, z * s);
+		}
+		return this;
+	}
+}
@@ -0,0 +1,251 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.util.BinReader;
+import com.util.BinWriter;
+import com.util.NumberWriter;
+
+/**
+ * Checks that the binary output of each converter holds the same values as its text output for
+ * the same source
+ * 
+ * @author Giant_Salted_Fish
+ */
+public class BinOutputTest
+{
+	@Rule
+	public final TemporaryFolder tmp = new TemporaryFolder();
+	
+	private ShapeBoxTable table;
+	
+	@Before
+	public void loadModel() throws IOException
+	{
+		this.table = ShapeBoxTable.load(resource("model.java"), false, false);
+	}
+	
+	@Test
+	public void hitboxMatchesText() throws IOException
+	{
+		final StringWriter text = new StringWriter();
+		try(NumberWriter out = new NumberWriter(text)) { HitboxConverter.write(this.table, out); }
+		
+		final File file = this.tmp.newFile();
+		try(BinWriter out = new BinWriter(file.getPath(), BinWriter.HITBOX)) {
+			HitboxConverter.write(this.table, out, true);
+		}
+		this.assertHitboxes(text.toString(), BinReader.map(file.getPath()));
+	}
+	
+	@Test
+	public void mergedHitboxMatchesText() throws IOException
+	{
+		final StringWriter text = new StringWriter();
+		try(NumberWriter out = new NumberWriter(text)) {
+			HitboxConverter.write(this.table, out, new HitboxConverter.Merger(1D));
+		}
+		
+		final File file = this.tmp.newFile();
+		try(BinWriter out = new BinWriter(file.getPath(), BinWriter.HITBOX)) {
+			HitboxConverter.write(this.table, out, new HitboxConverter.Merger(1D), false);
+		}
+		this.assertHitboxes(text.toString(), BinReader.map(file.getPath()));
+	}
+	
+	@Test
+	public void modelMatchesText() throws IOException
+	{
+		final StringWriter text = new StringWriter();
+		try(NumberWriter out = new NumberWriter(text)) { ModelConverter.write(this.table, out); }
+		
+		final File file = this.tmp.newFile();
+		try(BinWriter out = new BinWriter(file.getPath(), BinWriter.MODEL)) {
+			ModelConverter.write(this.table, out);
+		}
+		final BinReader in = BinReader.map(file.getPath());
+		Assert.assertEquals(BinWriter.MODEL, in.kind());
+		
+		// Text has a line for each box in the order of the blocks
+		final ArrayList<Float> expected = new ArrayList<>();
+		int lines = 0;
+		for(String line : text.toString().split("\\R"))
+		{
+			Assert.assertTrue(line, line.startsWith(".addShapeBox(") && line.endsWith(")"));
+			final String args = line.substring(".addShapeBox(".length(), line.length() - 1);
+			for(String arg : args.split(", ")) expected.add(toFloat(arg));
+			++lines;
+		}
+		
+		int records = 0;
+		for(int i = 0; i < in.blockCount(); ++i)
+		{
+			Assert.assertEquals(ModelConverter.BIN_STRIDE, in.stride(i));
+			Assert.assertTrue(in.name(i), this.table.idOf(in.name(i)) >= 0);
+			records += in.count(i);
+		}
+		Assert.assertEquals(lines, records);
+		assertFloats(expected, in, 0);
+	}
+	
+	@Test
+	public void animationMatchesText() throws IOException
+	{
+		final StringWriter text = new StringWriter();
+		final File file = this.tmp.newFile();
+		try(
+			JsonParser src = new JsonFactory().createParser(new File(resource("animation.json")));
+			NumberWriter out = new NumberWriter(text);
+			BinWriter bin = new BinWriter(file.getPath(), BinWriter.ANIMATION)
+		) { KeyPointsParser.stream(src, out, null, bin); }
+		
+		final BinReader in = BinReader.map(file.getPath());
+		Assert.assertEquals(BinWriter.ANIMATION, in.kind());
+		
+		String animation = null;
+		int bone = -1, headers = 0, bones = 0;
+		final ArrayList<Float> pos = new ArrayList<>(), rot = new ArrayList<>();
+		for(String line : text.toString().split("\\R", -1))
+		{
+			if(line.startsWith("/// "))
+			{
+				// "/// name: length s ///"
+				final int split = line.lastIndexOf(": ");
+				animation = line.substring("/// ".length(), split);
+				final int block = in.indexOf(animation, animation, KeyPointsParser.BIN_LENGTH);
+				Assert.assertTrue(animation, block >= 0);
+				Assert.assertEquals(1, in.count(block));
+				
+				final String length = line.substring(split + 2, line.length() - "s ///".length());
+				Assert.assertEquals(
+					(float)Double.parseDouble(length), in.floats(block).get(0), 0F
+				);
+				++headers;
+			}
+			else if(line.startsWith("// "))
+			{
+				final String name = line.substring("// ".length());
+				bone = in.indexOf(animation, name, KeyPointsParser.BIN_POS);
+				Assert.assertTrue(line, bone >= 0);
+				++bones;
+			}
+			else if(line.startsWith(".appendPos(")) addPoint(line, pos);
+			else if(line.startsWith(".appendRot(")) addPoint(line, rot);
+			else if(line.isEmpty() && bone >= 0)
+			{
+				// End of a bone
+				final int rotBlock = in.indexOf(animation, in.name(bone), KeyPointsParser.BIN_ROT);
+				Assert.assertTrue(in.name(bone), rotBlock >= 0);
+				assertTrack(pos, in, bone);
+				assertTrack(rot, in, rotBlock);
+				pos.clear();
+				rot.clear();
+				bone = -1;
+			}
+		}
+		
+		Assert.assertEquals(2, headers);
+		Assert.assertEquals(3, bones);
+		Assert.assertEquals(headers + bones * 2, in.blockCount());
+	}
+	
+	private void assertHitboxes(String text, BinReader in)
+	{
+		Assert.assertEquals(BinWriter.HITBOX, in.kind());
+		
+		// Each line is "[ (x,y,z) ... ]" with the eight vertices of a box
+		final ArrayList<Float> expected = new ArrayList<>();
+		for(String line : text.split("\\R"))
+		{
+			Assert.assertTrue(line, line.startsWith("[ (") && line.endsWith(") ]"));
+			final String vertices = line.substring("[ (".length(), line.length() - ") ]".length());
+			for(String vertex : vertices.split("\\) \\("))
+				for(String value : vertex.split(",")) expected.add(Float.parseFloat(value));
+		}
+		Assert.assertEquals(0, expected.size() % HitboxConverter.BIN_STRIDE);
+		
+		int floats = 0;
+		for(int i = 0; i < in.blockCount(); ++i)
+			if(in.tag(i) == HitboxConverter.BIN_BOXES)
+			{
+				Assert.assertNull(in.group(i));
+				Assert.assertEquals(HitboxConverter.BIN_STRIDE, in.stride(i));
+				floats += assertFloats(expected, in, i, floats);
+			}
+		Assert.assertEquals(expected.size(), floats);
+	}
+	
+	/**
+	 * Check the floats of all blocks from given one on against the expected values in order
+	 */
+	private static void assertFloats(ArrayList<Float> expected, BinReader in, int from)
+	{
+		int floats = 0;
+		for(int i = from; i < in.blockCount(); ++i) floats += assertFloats(expected, in, i, floats);
+		Assert.assertEquals(expected.size(), floats);
+	}
+	
+	/**
+	 * @return Amount of floats in the block
+	 */
+	private static int assertFloats(ArrayList<Float> expected, BinReader in, int block, int off)
+	{
+		final FloatBuffer buf = in.floats(block);
+		Assert.assertTrue(off + buf.limit() <= expected.size());
+		for(int i = 0; i < buf.limit(); ++i)
+			Assert.assertEquals(
+				in.name(block) + "[" + i + "]", expected.get(off + i), buf.get(i), 0F
+			);
+		return buf.limit();
+	}
+	
+	/**
+	 * Text writes {@code 0D, 0D, 0D, 0D} for a track without key frames
+	 */
+	private static void assertTrack(ArrayList<Float> expected, BinReader in, int block)
+	{
+		if(in.count(block) == 0)
+		{
+			Assert.assertEquals(KeyPointsParser.BIN_STRIDE, expected.size());
+			for(Float f : expected) Assert.assertEquals(0F, f, 0F);
+			return;
+		}
+		Assert.assertEquals(expected.size(), assertFloats(expected, in, block, 0));
+	}
+	
+	private static void addPoint(String line, ArrayList<Float> dst)
+	{
+		final String args = line.substring(line.indexOf('(') + 1, line.length() - 1);
+		for(String arg : args.split(", ")) dst.add(toFloat(arg));
+	}
+	
+	/**
+	 * Parse a literal of the text output, e.g. {@code 5}, {@code -1.5F} or {@code 0.04D}
+	 */
+	private static float toFloat(String literal)
+	{
+		final char suffix = literal.charAt(literal.length() - 1);
+		final boolean typed = suffix == 'F' || suffix == 'D';
+		final String value = typed ? literal.substring(0, literal.length() - 1) : literal;
+		return suffix == 'D' ? (float)Double.parseDouble(value) : Float.parseFloat(value);
+	}
+	
+	private static String resource(String name) throws IOException
+	{
+		try { return new File(BinOutputTest.class.getResource("/" + name).toURI()).getPath(); }
+		catch(URISyntaxException e) { throw new IOException(e); }
+	}
+}
@@ -0,0 +1,173 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.util.CoordSystem;
+import com.util.Mesh;
+import com.util.NumberWriter;
+
+/**
+ * Checks the vertices of rotated boxes against the transform of ModelRendererTurbo, which
+ * translates to the rotation point and rotates on Z, Y then X in radians, in a space with y and z
+ * flipped from the output
+ * 
+ * @author Giant_Salted_Fish
+ */
+public class HitboxConverterTest
+{
+	private static final float EPSILON = 1E-4F;
+	
+	/**
+	 * Offset, length, rotation point and rotation in radians of each box
+	 */
+	private static final float[][] BOXES = {
+		{ -1F, 2F, 0.5F,  4F, 3F, 2F,  3F, -2F, 1F,  0F, 0.5235988F, -0.7853982F },
+		{ 0.5F, -1F, -2F,  2F, 5F, 3F,  -4F, 6F, 2F,  0.3F, -1.2F, 0.9F },
+		{ 0F, 0F, 0F,  1F, 1F, 1F,  8F, 0F, -8F,  1F, 0F, 0F },
+	};
+	
+	/**
+	 * Shape values of the second box, zero for the others
+	 */
+	private static final float[] SHAPE = {
+		0.1F, 0.2F, 0.3F,  -0.4F, 0F, 0.5F,  0.6F, -0.1F, 0F,  0F, 0.7F, -0.2F,
+		0.3F, 0F, 0.1F,  0.2F, -0.3F, 0.4F,  -0.5F, 0.6F, 0F,  0F, 0F, 0.8F
+	};
+	
+	/**
+	 * Side of each vertex on x, y and z in the order of {@link HitboxConverter}, {@code 1} for
+	 * offset plus length
+	 */
+	private static final int[] CORNERS = {
+		0, 0, 0,  1, 0, 0,  1, 0, 1,  0, 0, 1,
+		0, 1, 0,  1, 1, 0,  1, 1, 1,  0, 1, 1
+	};
+	
+	@Rule
+	public final TemporaryFolder tmp = new TemporaryFolder();
+	
+	private ShapeBoxTable table;
+	
+	@Before
+	public void loadModel() throws IOException
+	{
+		final StringBuilder src = new StringBuilder();
+		src.append("\t\tbodyModel = new ModelRendererTurbo[" + BOXES.length + "];\n");
+		for(int i = 0; i < BOXES.length; ++i)
+		{
+			src.append("\t\tbodyModel[" + i + "] = ");
+			src.append("new ModelRendererTurbo(this, 0, 0, textureX, textureY);\n");
+		}
+		
+		for(int i = 0; i < BOXES.length; ++i)
+		{
+			final float[] box = BOXES[i];
+			src.append("\t\tbodyModel[" + i + "].addShapeBox(");
+			for(int j = 0; j < 3; ++j) src.append(box[j]).append("F, ");
+			for(int j = 3; j < 6; ++j) src.append((int)box[j]).append(", ");
+			src.append("0F");
+			for(int j = 0; j < 24; ++j) src.append(", ").append(this.shape(i, j)).append('F');
+			src.append(");\n");
+			
+			src.append("\t\tbodyModel[" + i + "].setRotationPoint(");
+			src.append(box[6] + "F, " + box[7] + "F, " + box[8] + "F);\n");
+			for(int axis = 0; axis < 3; ++axis)
+				if(box[9 + axis] != 0F)
+				{
+					src.append("\t\tbodyModel[" + i + "].rotateAngle" + "XYZ".charAt(axis));
+					src.append(" = " + box[9 + axis] + "F;\n");
+				}
+		}
+		
+		final File file = this.tmp.newFile("rotated.java");
+		Files.write(file.toPath(), src.toString().getBytes(StandardCharsets.UTF_8));
+		this.table = ShapeBoxTable.load(file.getPath(), false, false);
+	}
+	
+	@Test
+	public void verticesFollowTurboRotation()
+	{
+		final CoordSystem sys = CoordSystem.get();
+		final float[] v = HitboxConverter.vertices(this.table, 0, sys, null);
+		sys.release();
+		
+		Assert.assertEquals(BOXES.length * HitboxConverter.BIN_STRIDE, v.length);
+		for(int i = 0; i < BOXES.length; ++i)
+			for(int k = 0; k < 8; ++k)
+				this.assertVertex(i, k, v, i * HitboxConverter.BIN_STRIDE + k * 3);
+	}
+	
+	@Test
+	public void meshFollowsTurboRotation() throws IOException
+	{
+		final Mesh mesh;
+		try(NumberWriter out = new NumberWriter(new StringWriter())) {
+			mesh = ModelConverter.writeMesh(this.table, out, Mesh.DEF_QUANTUM);
+		}
+		
+		// No corners are shared, so vertices are in the order of the boxes
+		Assert.assertEquals(BOXES.length * 8, mesh.vertexCount());
+		for(int i = 0; i < BOXES.length; ++i)
+			for(int k = 0; k < 8; ++k) this.assertVertex(i, k, mesh.vertices(), (i * 8 + k) * 3);
+	}
+	
+	private void assertVertex(int box, int corner, float[] v, int off)
+	{
+		final double[] expected = this.corner(box, corner);
+		final String msg = "box " + box + " vertex " + corner;
+		Assert.assertEquals(msg + " x", expected[0], v[off], EPSILON);
+		Assert.assertEquals(msg + " y", expected[1], v[off + 1], EPSILON);
+		Assert.assertEquals(msg + " z", expected[2], v[off + 2], EPSILON);
+	}
+	
+	/**
+	 * @return Expected position of the vertex in output space
+	 */
+	private double[] corner(int box, int corner)
+	{
+		final float[] b = BOXES[box];
+		
+		// Corner in model space, shape values push it away from the box
+		final double[] p = new double[3];
+		for(int axis = 0; axis < 3; ++axis)
+		{
+			final double shape = this.shape(box, corner * 3 + axis);
+			p[axis] = (
+				CORNERS[corner * 3 + axis] == 0
+				? b[axis] - shape
+				: b[axis] + b[3 + axis] + shape
+			);
+		}
+		
+		// Rotate on X, Y then Z and move to the rotation point
+		double x = p[0], y = p[1], z = p[2], t;
+		double c = Math.cos(b[9]), s = Math.sin(b[9]);
+		t = y * c - z * s;
+		z = y * s + z * c;
+		y = t;
+		c = Math.cos(b[10]);
+		s = Math.sin(b[10]);
+		t = x * c + z * s;
+		z = z * c - x * s;
+		x = t;
+		c = Math.cos(b[11]);
+		s = Math.sin(b[11]);
+		t = x * c - y * s;
+		y = x * s + y * c;
+		x = t;
+		
+		return new double[] { x + b[6], -(y + b[7]), -(z + b[8]) };
+	}
+	
+	private float shape(int box, int i) { return box == 1 ? SHAPE[i] : 0F; }
+}
@@ -0,0 +1,90 @@
+package com;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.util.NumberWriter;
+
+/**
+ * Checks that the lines written by {@link ModelConverter} keep the exact values of the source
+ * 
+ * @author Giant_Salted_Fish
+ */
+public class ModelConverterTest
+{
+	@Test
+	public void writesFloatLiterals() throws IOException
+	{
+		Assert.assertEquals("0F", literal(0F));
+		Assert.assertEquals("-0F", literal(-0F));
+		Assert.assertEquals("3F", literal(3F));
+		Assert.assertEquals("-7F", literal(-7F));
+		Assert.assertEquals("-1.5F", literal(-1.5F));
+		Assert.assertEquals("0.3828476F", literal(0.3828476F));
+	}
+	
+	@Test
+	public void keepsBitsOfSource() throws IOException, URISyntaxException
+	{
+		final String src = new File(
+			ModelConverterTest.class.getResource("/model.java").toURI()
+		).getPath();
+		final ShapeBoxTable table = ShapeBoxTable.load(src, false, false);
+		
+		final StringWriter text = new StringWriter();
+		try(NumberWriter out = new NumberWriter(text)) { ModelConverter.write(table, out); }
+		
+		// Lines are in the order of the boxes, all of which have a shape box statement
+		final String[] lines = text.toString().split("\\R");
+		int line = 0, negativeZeros = 0;
+		for(int id = 0; id < table.arrayCount(); ++id)
+		{
+			final float[] values = table.values(id);
+			for(int i = 0; i < table.size(id); ++i)
+			{
+				final String[] args = lines[line++].replaceAll("^\\.addShapeBox\\(|\\)$", "")
+					.split(", ");
+				
+				// Parameters in the order of .addShapeBox, skipping u and v
+				final int off = i * ShapeBoxTable.STRIDE;
+				final int[] index = new int[ModelConverter.BIN_STRIDE - 2];
+				int n = 0;
+				for(int j = 0; j < 3; ++j) index[n++] = off + ShapeBoxTable.POS + j;
+				for(int j = 0; j < 3; ++j) index[n++] = off + ShapeBoxTable.OFFSET + j;
+				for(int j = 0; j < 3; ++j) index[n++] = off + ShapeBoxTable.ROT + j;
+				for(int j = 0; j < 3; ++j) index[n++] = off + ShapeBoxTable.LENGTH + j;
+				for(int j = 0; j < 24; ++j) index[n++] = off + ShapeBoxTable.SHAPE + j;
+				
+				for(int j = 0, arg = 0; j < index.length; ++j, ++arg)
+				{
+					// u and v after the length
+					if(j == 12) arg += 2;
+					
+					final float expected = values[index[j]];
+					final float actual = Float.parseFloat(args[arg].replace("F", ""));
+					Assert.assertEquals(
+						table.name(id) + "[" + i + "] " + args[arg],
+						Float.floatToRawIntBits(expected),
+						Float.floatToRawIntBits(actual)
+					);
+					if(Float.floatToRawIntBits(expected) == Float.floatToRawIntBits(-0F))
+						++negativeZeros;
+				}
+			}
+		}
+		Assert.assertEquals(lines.length, line);
+		Assert.assertTrue("fixture has no -0F", negativeZeros > 0);
+	}
+	
+	private static String literal(float f) throws IOException
+	{
+		final StringWriter text = new StringWriter();
+		try(NumberWriter out = new NumberWriter(text)) { ModelConverter.writeFloat(out, f); }
+		return text.toString();
+	}
+}
@@ -0,0 +1,142 @@
+package com.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Layout checks of the binary container written by {@link BinWriter} and read by
+ * {@link BinReader}
+ * 
+ * @author Giant_Salted_Fish
+ */
+public class BinReaderTest
+{
+	/**
+	 * Takes more bytes than chars in UTF-8
+	 */
+	private static final String NON_ASCII = "\u69CD\u8EAB";
+	
+	@Rule
+	public final TemporaryFolder tmp = new TemporaryFolder();
+	
+	@Test
+	public void readsBlocksAndStringTable() throws IOException
+	{
+		final File file = this.tmp.newFile("strings.bin");
+		try(BinWriter out = new BinWriter(file.getPath(), BinWriter.ANIMATION))
+		{
+			out.begin("animation.fire", "animation.fire", 0, 1).put(0.75F).end();
+			out.begin("animation.fire", "slide", 1, 4).put(new float[] { 1, 2, 3, 4 }, 0, 4).end();
+			out.begin(null, NON_ASCII, 2, 2).end();
+			out.begin("animation.reload", "slide", 1, 4).end();
+		}
+		
+		final BinReader in = BinReader.map(file.getPath());
+		Assert.assertEquals(BinWriter.ANIMATION, in.kind());
+		Assert.assertEquals(4, in.blockCount());
+		
+		Assert.assertEquals("animation.fire", in.group(0));
+		Assert.assertEquals("animation.fire", in.name(0));
+		Assert.assertEquals(0.75F, in.floats(0).get(0), 0F);
+		
+		Assert.assertEquals("slide", in.name(1));
+		Assert.assertEquals(1, in.tag(1));
+		Assert.assertEquals(4, in.stride(1));
+		Assert.assertEquals(1, in.count(1));
+		final FloatBuffer floats = in.floats(1);
+		Assert.assertEquals(4, floats.limit());
+		for(int i = 0; i < 4; ++i) Assert.assertEquals(i + 1F, floats.get(i), 0F);
+		
+		// Block without group and with non ASCII name
+		Assert.assertNull(in.group(2));
+		Assert.assertEquals(NON_ASCII, in.name(2));
+		Assert.assertEquals(0, in.count(2));
+		Assert.assertEquals(0, in.floats(2).limit());
+		
+		// Same name in another group is a different block
+		Assert.assertEquals(1, in.indexOf("animation.fire", "slide", 1));
+		Assert.assertEquals(3, in.indexOf("animation.reload", "slide", 1));
+		Assert.assertEquals(2, in.indexOf(null, NON_ASCII, 2));
+		Assert.assertEquals(-1, in.indexOf(null, "slide", 1));
+		Assert.assertEquals(-1, in.indexOf("animation.fire", "slide", 2));
+	}
+	
+	@Test
+	public void readsFromBufferPosition() throws IOException
+	{
+		final byte[] bytes = this.container();
+		final ByteBuffer buf = ByteBuffer.allocate(bytes.length + 8);
+		buf.position(8);
+		buf.put(bytes).position(8);
+		
+		final BinReader in = new BinReader(buf);
+		Assert.assertEquals(8, buf.position());
+		Assert.assertEquals(BinWriter.HITBOX, in.kind());
+		Assert.assertEquals("box", in.name(0));
+	}
+	
+	@Test
+	public void rejectsBadMagic() throws IOException
+	{
+		final byte[] bytes = this.container();
+		bytes[0] ^= 1;
+		this.assertRejected(bytes, "not a binary container");
+	}
+	
+	@Test
+	public void rejectsShortHeader() throws IOException
+	{
+		final byte[] bytes = Arrays.copyOf(this.container(), BinWriter.HEADER_SIZE - 1);
+		this.assertRejected(bytes, "not a binary container");
+	}
+	
+	@Test
+	public void rejectsUnknownVersion() throws IOException
+	{
+		final byte[] bytes = this.container();
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putShort(4, (short)2);
+		this.assertRejected(bytes, "unsupported container version <2>");
+	}
+	
+	@Test
+	public void rejectsBlockOutOfBounds() throws IOException
+	{
+		// Record count of the first block larger than the file
+		final byte[] bytes = this.container();
+		final ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(BinWriter.HEADER_SIZE + 16, 99);
+		this.assertRejected(bytes, "block <0> out of bounds");
+	}
+	
+	/**
+	 * @return Bytes of a hitbox container with a single box block
+	 */
+	private byte[] container() throws IOException
+	{
+		final File file = this.tmp.newFile();
+		try(BinWriter out = new BinWriter(file.getPath(), BinWriter.HITBOX)) {
+			out.begin(null, "box", 0, 3).put(new float[] { 1, 2, 3 }, 0, 3).end();
+		}
+		return Files.readAllBytes(file.toPath());
+	}
+	
+	private void assertRejected(byte[] bytes, String message)
+	{
+		try
+		{
+			new BinReader(ByteBuffer.wrap(bytes));
+			Assert.fail("expect container to be rejected with <" + message + ">");
+		}
+		catch(IOException e) { Assert.assertEquals(message, e.getMessage()); }
+	}
+}
@@ -0,0 +1,94 @@
+		bodyModel = new ModelRendererTurbo[10];
+		bodyModel[0] = new ModelRendererTurbo(this, 68, 32, textureX, textureY); // Box 0
+		bodyModel[1] = new ModelRendererTurbo(this, 130, 60, textureX, textureY); // Box 1
+		bodyModel[2] = new ModelRendererTurbo(this, 253, 230, textureX, textureY); // Box 2
+		bodyModel[3] = new ModelRendererTurbo(this, 241, 194, textureX, textureY); // Box 3
+		bodyModel[4] = new ModelRendererTurbo(this, 107, 48, textureX, textureY); // Box 4
+		bodyModel[5] = new ModelRendererTurbo(this, 249, 14, textureX, textureY); // Box 5
+		bodyModel[6] = new ModelRendererTurbo(this, 199, 221, textureX, textureY); // Box 6
+		bodyModel[7] = new ModelRendererTurbo(this, 1, 228, textureX, textureY); // Box 7
+		bodyModel[8] = new ModelRendererTurbo(this, 136, 117, textureX, textureY); // Box 8
+		bodyModel[9] = new ModelRendererTurbo(this, 52, 162, textureX, textureY); // Box 9
+
+		turretModel = new ModelRendererTurbo[10];
+		turretModel[0] = new ModelRendererTurbo(this, 15, 11, textureX, textureY); // Box 0
+		turretModel[1] = new ModelRendererTurbo(this, 13, 4, textureX, textureY); // Box 1
+		turretModel[2] = new ModelRendererTurbo(this, 195, 110, textureX, textureY); // Box 2
+		turretModel[3] = new ModelRendererTurbo(this, 216, 14, textureX, textureY); // Box 3
+		turretModel[4] = new ModelRendererTurbo(this, 113, 224, textureX, textureY); // Box 4
+		turretModel[5] = new ModelRendererTurbo(this, 253, 119, textureX, textureY); // Box 5
+		turretModel[6] = new ModelRendererTurbo(this, 176, 118, textureX, textureY); // Box 6
+		turretModel[7] = new ModelRendererTurbo(this, 112, 235, textureX, textureY); // Box 7
+		turretModel[8] = new ModelRendererTurbo(this, 148, 11, textureX, textureY); // Box 8
+		turretModel[9] = new ModelRendererTurbo(this, 213, 51, textureX, textureY); // Box 9
+
+		bodyModel[0].addShapeBox(0F, -8F, 1.6407402F, 5, 8, 9, 0F, -4.3F, -0.38284762F, 0F, -2F, 0F, -9F, 0F, 10.8F, -0.62469643F, 0F, -4.7F, 0F, -0.8F, -5F, 0.15391518F, -1.7F, -1.276864F, 0F, 14.7F, 1.1891509F, -8.4F, -4F, 0F, -0.62663011F); // Box 0
+		bodyModel[0].setRotationPoint(-15.6F, 18.6F, -2F);
+
+		bodyModel[1].addShapeBox(-8F, 0.59402567F, 6.4F, 4, 1, 5, 0F, -17.2F, 0F, -9F, 0F, -3F, -0.030596998F, -9F, -1.9276281F, 0.25336214F, -1F, -8F, 0F, -16.6F, -0.67106609F, -5.3F, 14.7F, 0F, -3.7F, 0F, -1.1051437F, 0F, -0.89126894F, -1F, -15.4F); // Box 1
+		bodyModel[1].setRotationPoint(-10.4F, -15.4F, -1.5886634F);
+
+		bodyModel[2].addShapeBox(0F, 1.7024147F, 0F, 6, 8, 2, 0F, -8F, 6.5F, -1.0144752F, 1.0131467F, 0F, -0.73305941F, 0F, -3F, 0F, -5F, 1.4364604F, -16.9F, 1.9395835F, 0.057433004F, 0F, 11.2F, 0F, 0F, -0.21322004F, 0F, -4F, 0F, -17.5F, -4F); // Box 2
+		bodyModel[2].setRotationPoint(2.6F, -5F, 17.2F);
+
+		bodyModel[3].addShapeBox(-0.65219401F, -1.1221233F, 1.0641114F, 5, 5, 9, 0F, 0F, -8F, 0F, -5F, 0F, 0F, 0F, -6F, -4.1F, 0F, 0.13621817F, 0F, 0F, 1.8923659F, -11.7F, -4F, 1.2346185F, -3F, 0F, 2.8F, -4F, -0.57272495F, -0.23074267F, -9F); // Box 3
+		bodyModel[3].setRotationPoint(-15.5F, 2.3F, -8F);
+
+		bodyModel[4].addShapeBox(8.1F, -6F, 0F, 8, 4, 5, 0F, -2F, 0F, -0.94166697F, -13.9F, 0F, 0F, 6.3F, -0.39230509F, -1.1691667F, 0.79678013F, -1.3F, 0.94034576F, -6F, 1.1590705F, 8.6F, -9F, -0.27293751F, -2F, 1.7317319F, -2F, 0F, 0F, 0F, 0F); // Box 4
+		bodyModel[4].setRotationPoint(-0F, -9F, -6.3F);
+		bodyModel[4].rotateAngleX = -0.78539816F;
+
+		bodyModel[5].addShapeBox(-4F, -0.44162607F, 0F, 1, 1, 1, 0F, -0.72170225F, 0F, 0F, -1F, 0F, 0F, 0F, -0.0013517845F, -7F, -6.8F, -10.2F, 0F, 16.2F, 0.14561946F, 0.88446116F, -12.9F, 0F, 0.051358326F, 0F, -6F, 0.098038234F, -0F, -0.95597153F, 0F); // Box 5
+		bodyModel[5].setRotationPoint(-3.0F, -6F, 0F);
+		bodyModel[5].rotateAngleZ = -0.78539816F;
+
+		bodyModel[6].addShapeBox(-0.70311847F, -1.7405485F, -0.72480278F, 9, 9, 1, 0F, -1.404974F, -4F, 0F, 0F, 0.9F, 0.98659615F, -3.9F, -18.8F, 0F, 0F, 0F, 14.2F, -0.27164069F, 16.0F, -3F, -3F, -4F, -6F, -8F, 0F, 0F, 0.049967822F, -8F, 0.32423789F); // Box 6
+		bodyModel[6].setRotationPoint(-14.8F, 0F, 0F);
+
+		bodyModel[7].addShapeBox(-5F, -1F, -5.8F, 5, 6, 3, 0F, -0.85142037F, -0.85089228F, -2.7F, -6F, -16.3F, -2F, 0F, -16.4F, -1F, 0.96448371F, -12.8F, 0F, -8F, 0F, -14.0F, -0.33358387F, 14.8F, 0F, 1.9558682F, 0F, -3F, 0F, -2F, -0.079412171F); // Box 7
+		bodyModel[7].setRotationPoint(-9F, -2F, 1.4F);
+
+		bodyModel[8].addShapeBox(0F, -14.9F, -16.5F, 2, 4, 4, 0F, -4F, -6.9F, -1.1019586F, 0F, -6.8F, 0F, 9.0F, 0F, 0F, -0.90546724F, -1.5511516F, -9F, 0.14304793F, 15.9F, -17.8F, 0F, -0.91626248F, -0.38685007F, 0F, 4.8F, -3F, 1.3929187F, -6F, 1.9068197F); // Box 8
+		bodyModel[8].setRotationPoint(0F, -2F, -1F);
+		bodyModel[8].rotateAngleX = -0.408277F;
+
+		bodyModel[9].addShapeBox(0F, 0F, 0.34956527F, 9, 5, 6, 0F, 12.1F, 0F, -5F, -0F, -5F, 11.9F, -17.8F, 0F, -3F, 5.3F, -16.0F, -0.15477828F, -3F, -9F, 0F, 0F, -0.16481126F, 0F, 17.9F, 1.5F, 1.6289858F, 6.5F, -13.0F, -2.9F); // Box 9
+		bodyModel[9].setRotationPoint(0F, 0F, 0F);
+		bodyModel[9].rotateAngleY = -0.78539816F;
+
+		turretModel[0].addShapeBox(-1.3332075F, -8F, 2.2F, 8, 5, 6, 0F, 17.1F, 0.48816106F, -0.96612614F, -4.6F, 18.2F, -17.2F, 1.7F, 0F, 0F, 9.9F, -3F, -1.190353F, 10.0F, 0.1414533F, 0F, 0F, -17.9F, 0F, 14.2F, -3F, 0.069781367F, -3F, 0.17998632F, -18.5F); // Box 0
+		turretModel[0].setRotationPoint(-6F, -9.1F, -0F);
+		turretModel[0].rotateAngleX = 1.937379F;
+
+		turretModel[1].addShapeBox(-0F, 13.4F, 13.9F, 4, 6, 2, 0F, -6.4F, -4F, -9F, -0.40022305F, 0F, 0F, -2.9F, 0F, -5F, 0F, 0.11819735F, 0F, 0F, 0F, 16.9F, 0F, 1.4671781F, 1.4074787F, -1.746142F, 0F, -4F, -16.7F, 0F, 0F); // Box 1
+		turretModel[1].setRotationPoint(2.0F, 0F, 0F);
+
+		turretModel[2].addShapeBox(1.0F, 0F, -0.1666665F, 8, 6, 6, 0F, 0F, 0F, -19.6F, -3F, -0.038062349F, -4.3F, -9F, 0F, -9F, 0F, -8F, -9F, -7F, -0.92693035F, 1.2228162F, -0F, -8F, -11.6F, -0.25056287F, 0F, -1.9401569F, 3.6F, 8.7F, -0.82284516F); // Box 2
+		turretModel[2].setRotationPoint(1.8495581F, -8F, -3F);
+
+		turretModel[3].addShapeBox(-6F, -1.3920671F, -4F, 8, 3, 3, 0F, -0.51696272F, 0F, -0.83084494F, -1F, -1.1177291F, 0F, 3.9F, -8.3F, 0F, -1.8604979F, 11.4F, -0.93494942F, 0F, 0F, -6.7F, 0.2F, 0F, 0F, -1.3997732F, -1F, 0F, 0F, 1.2462397F, 0F); // Box 3
+		turretModel[3].setRotationPoint(1.0598532F, -9F, 14.6F);
+
+		turretModel[4].addShapeBox(0F, -0.25363043F, -5F, 8, 6, 6, 0F, 0F, -5.2F, 14.9F, -1.7F, 0.44815329F, -1.3138276F, -5F, 0F, 0F, -1.2333455F, 1.4812729F, 0F, 0F, -5F, 1.0897535F, 7.9F, -11.1F, -9F, -8F, -3F, 12.2F, -2F, 0F, 0F); // Box 4
+		turretModel[4].setRotationPoint(0.62395049F, -13.4F, 0F);
+
+		turretModel[5].addShapeBox(0.044695297F, 0F, -0.33781872F, 2, 6, 1, 0F, 1.6338714F, -4F, -1.9520622F, -18.1F, -9F, 0.43421084F, -14.3F, -4.2F, 0F, -9F, -2F, -8F, 0.35464601F, -0.24889537F, 14.1F, -0.23117325F, -2F, 0F, -3F, 19.7F, -0.68022418F, -7F, -0.75562104F, 3.7F); // Box 5
+		turretModel[5].setRotationPoint(0F, -3.0F, -8F);
+		turretModel[5].rotateAngleY = 1.57079633F;
+		turretModel[5].rotateAngleZ = -0.78539816F;
+
+		turretModel[6].addShapeBox(0F, -9F, -0.5F, 5, 3, 1, 0F, 2.3F, 0F, -4F, -2F, -9F, 0.2F, -3F, -1F, -1.3931859F, -6F, -4F, 0F, 0F, -5F, 0.23603016F, -5F, 7.6F, -10.4F, 0F, 1.7705423F, -5.5F, 11.5F, -7.5F, -19.7F); // Box 6
+		turretModel[6].setRotationPoint(-5F, -1F, -19.8F);
+		turretModel[6].rotateAngleX = 1.57079633F;
+		turretModel[6].rotateAngleZ = -0.377963F;
+
+		turretModel[7].addShapeBox(1.777394F, 17.7F, 0F, 8, 9, 3, 0F, 1.3987177F, 3.8F, 0F, -8F, 2.6F, -1F, -1.0F, 1.6334091F, 0F, -1F, -9F, -1.4291316F, -0.46517475F, 0F, -3F, 0F, 0F, -4F, -5F, -0F, 0F, 0F, -1.4050443F, 0F); // Box 7
+		turretModel[7].setRotationPoint(-9F, 0F, -6F);
+		turretModel[7].rotateAngleX = -0.78539816F;
+
+		turretModel[8].addShapeBox(-1.7309897F, 0F, -0F, 4, 2, 5, 0F, -1.7526933F, 0F, -8.9F, -5F, -2.3F, 9.8F, -6F, -6F, 0F, -0.025764913F, 1.3554099F, -2F, -0.21698545F, 1.7F, -1F, 0F, -5F, 0F, 0F, -15.3F, 0F, -9F, -9.3F, 0F); // Box 8
+		turretModel[8].setRotationPoint(-7F, -2.5F, -6F);
+
+		turretModel[9].addShapeBox(0F, -5.4F, -8F, 2, 8, 1, 0F, -1.1F, 0F, 0F, 1.4286228F, -0.25538107F, 0F, -9F, -0F, 0F, -8.3F, -0.084867579F, 0.3F, 0F, 0.93295809F, -1.8F, 0F, -8F, 0F, 0F, 0F, 0F, -1.8186173F, 0.14980833F, 1.4249236F); // Box 9
+		turretModel[9].setRotationPoint(15.1F, 0.53755229F, -0.77587885F);
+